@@ -1,5 +1,6 @@
 package gov.samhsa.c2s.pep;
 
+import gov.samhsa.c2s.pep.infrastructure.feign.PooledFeignClientConfiguration;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
@@ -7,7 +8,7 @@
 
 @SpringBootApplication
 @EnableDiscoveryClient
-@EnableFeignClients
+@EnableFeignClients(defaultConfiguration = PooledFeignClientConfiguration.class)
 public class PepApplication {
 
     public static void main(String[] args) {
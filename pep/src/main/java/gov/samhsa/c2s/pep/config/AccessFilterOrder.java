@@ -0,0 +1,25 @@
+package gov.samhsa.c2s.pep.config;
+
+import org.springframework.core.Ordered;
+
+/**
+ * Order of the filters registered on /access, after the filters of Spring Boot and Sleuth.
+ */
+public final class AccessFilterOrder {
+
+    /**
+     * Decompresses the body first, so that the memory budget counts the decompressed size
+     */
+    public static final int GZIP_REQUEST = Ordered.LOWEST_PRECEDENCE - 30;
+
+    /**
+     * Waits for memory budget before the concurrency limit, so that the wait neither holds a concurrency permit nor
+     * counts into the latency samples of the limiter
+     */
+    public static final int MEMORY_BUDGET = Ordered.LOWEST_PRECEDENCE - 20;
+
+    public static final int CONCURRENCY_LIMIT = Ordered.LOWEST_PRECEDENCE - 10;
+
+    private AccessFilterOrder() {
+    }
+}
@@ -0,0 +1,20 @@
+package gov.samhsa.c2s.pep.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gov.samhsa.c2s.pep.service.AccessMetrics;
+import gov.samhsa.c2s.pep.web.metrics.TimedMappingJackson2HttpMessageConverter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+@Configuration
+public class AccessMetricsConfig {
+
+    /**
+     * Replaces the JSON message converter of Spring Boot with one that records the response serialization stage
+     */
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper, AccessMetrics accessMetrics) {
+        return new TimedMappingJackson2HttpMessageConverter(objectMapper, accessMetrics);
+    }
+}
@@ -2,41 +2,29 @@
 
 import gov.samhsa.c2s.common.document.accessor.DocumentAccessor;
 import gov.samhsa.c2s.common.document.accessor.DocumentAccessorImpl;
-import gov.samhsa.c2s.common.document.converter.DocumentXmlConverter;
-import gov.samhsa.c2s.common.document.converter.DocumentXmlConverterImpl;
-import gov.samhsa.c2s.common.document.transformer.XmlTransformer;
-import gov.samhsa.c2s.common.document.transformer.XmlTransformerImpl;
 import gov.samhsa.c2s.common.marshaller.SimpleMarshaller;
 import gov.samhsa.c2s.common.marshaller.SimpleMarshallerImpl;
+import gov.samhsa.c2s.pep.infrastructure.feign.PooledHttpClients;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
 public class ApplicationContextConfig {
 
-    @Bean
-    public DocumentXmlConverter documentXmlConverter() {
-        return new DocumentXmlConverterImpl();
-    }
-
     @Bean
     public DocumentAccessor documentAccessor() {
         return new DocumentAccessorImpl();
     }
 
-    @Bean
-    public XmlTransformer xmlTransformer() {
-        return new XmlTransformerImpl(simpleMarshallerImpl());
-    }
-
     @Bean
     public SimpleMarshaller simpleMarshallerImpl() {
         return new SimpleMarshallerImpl();
     }
 
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(PooledHttpClients pooledHttpClients) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(pooledHttpClients.get("rest-template")));
     }
 }
@@ -0,0 +1,34 @@
+package gov.samhsa.c2s.pep.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Dedicated executors for the downstream calls of /access/async requests, so that slow dependencies are limited by
+ * their own pool sizes instead of holding servlet threads.
+ */
+@Configuration
+@EnableConfigurationProperties(AsyncAccessProperties.class)
+public class AsyncAccessConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor contextHandlerExecutor(AsyncAccessProperties asyncAccessProperties) {
+        return boundedExecutor("context-handler-", asyncAccessProperties.getContextHandlerPoolSize(), asyncAccessProperties.getQueueCapacity());
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor dssExecutor(AsyncAccessProperties asyncAccessProperties) {
+        return boundedExecutor("dss-", asyncAccessProperties.getDssPoolSize(), asyncAccessProperties.getQueueCapacity());
+    }
+
+    private static ThreadPoolTaskExecutor boundedExecutor(String threadNamePrefix, int poolSize, int queueCapacity) {
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        return executor;
+    }
+}
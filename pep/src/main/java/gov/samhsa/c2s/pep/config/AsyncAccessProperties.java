@@ -0,0 +1,35 @@
+package gov.samhsa.c2s.pep.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import javax.validation.constraints.Min;
+
+@Data
+@ConfigurationProperties(prefix = "c2s.pep.async")
+public class AsyncAccessProperties {
+
+    /**
+     * Number of threads calling the context-handler for /access/async requests
+     */
+    @Min(1)
+    private int contextHandlerPoolSize = 20;
+
+    /**
+     * Number of threads calling the DSS and rendering HTML for /access/async requests
+     */
+    @Min(1)
+    private int dssPoolSize = 20;
+
+    /**
+     * Maximum number of calls waiting for a thread of each pool, further requests are rejected with 503
+     */
+    @Min(0)
+    private int queueCapacity = 200;
+
+    /**
+     * Time in milliseconds after which a pending /access/async request is answered with 503
+     */
+    @Min(1)
+    private long timeoutInMillis = 60000;
+}
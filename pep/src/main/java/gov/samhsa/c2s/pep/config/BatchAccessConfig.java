@@ -0,0 +1,25 @@
+package gov.samhsa.c2s.pep.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Shared executor of /access/batch requests. Each batch submits at most {@code c2s.pep.batch.concurrency} of its
+ * access requests at once, the bounded queue rejects the access requests of batches beyond the capacity of the pool.
+ */
+@Configuration
+@EnableConfigurationProperties(BatchAccessProperties.class)
+public class BatchAccessConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor batchAccessExecutor(BatchAccessProperties batchAccessProperties) {
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(batchAccessProperties.getPoolSize());
+        executor.setMaxPoolSize(batchAccessProperties.getPoolSize());
+        executor.setQueueCapacity(batchAccessProperties.getQueueCapacity());
+        executor.setThreadNamePrefix("batch-access-");
+        return executor;
+    }
+}
@@ -0,0 +1,29 @@
+package gov.samhsa.c2s.pep.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import javax.validation.constraints.Min;
+
+@Data
+@ConfigurationProperties(prefix = "c2s.pep.batch")
+public class BatchAccessProperties {
+
+    /**
+     * Maximum number of access requests of a single batch running in parallel on the shared pool
+     */
+    @Min(1)
+    private int concurrency = 8;
+
+    /**
+     * Number of threads shared by all batch access requests for their policy enforcement and segmentation calls
+     */
+    @Min(1)
+    private int poolSize = 16;
+
+    /**
+     * Maximum number of access requests waiting for a thread of the shared pool, further requests fail with 503
+     */
+    @Min(0)
+    private int queueCapacity = 64;
+}
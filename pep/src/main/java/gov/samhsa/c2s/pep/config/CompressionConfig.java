@@ -0,0 +1,27 @@
+package gov.samhsa.c2s.pep.config;
+
+import gov.samhsa.c2s.pep.web.compression.GzipRequestFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Accepts gzip compressed /access requests. Responses are compressed by the servlet container when the client accepts
+ * it, see server.compression in application.yml.
+ */
+@Configuration
+@EnableConfigurationProperties(RequestDecompressionProperties.class)
+public class CompressionConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "c2s.pep.request-decompression", name = "enabled", matchIfMissing = true)
+    public FilterRegistrationBean gzipRequestFilter(RequestDecompressionProperties requestDecompressionProperties) {
+        final FilterRegistrationBean registration = new FilterRegistrationBean(
+                new GzipRequestFilter(requestDecompressionProperties.getMaxDecompressedSizeInBytes()));
+        registration.addUrlPatterns("/access", "/access/*");
+        registration.setOrder(AccessFilterOrder.GZIP_REQUEST);
+        return registration;
+    }
+}
@@ -0,0 +1,43 @@
+package gov.samhsa.c2s.pep.config;
+
+import gov.samhsa.c2s.pep.web.limit.AdaptiveConcurrencyLimiter;
+import gov.samhsa.c2s.pep.web.limit.ConcurrencyLimitFilter;
+import gov.samhsa.c2s.pep.web.limit.ConcurrencyLimitProperties;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Sheds /access load above the adaptive concurrency limits before it reaches the servlet, with separate limits for
+ * requests with a document and for policy decision only requests.
+ */
+@Configuration
+@EnableConfigurationProperties(ConcurrencyLimitProperties.class)
+@ConditionalOnProperty(prefix = "c2s.pep.concurrency-limit", name = "enabled", matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public AdaptiveConcurrencyLimiter decisionConcurrencyLimiter(ConcurrencyLimitProperties concurrencyLimitProperties) {
+        return new AdaptiveConcurrencyLimiter("decision", concurrencyLimitProperties);
+    }
+
+    @Bean
+    public AdaptiveConcurrencyLimiter documentConcurrencyLimiter(ConcurrencyLimitProperties concurrencyLimitProperties) {
+        return new AdaptiveConcurrencyLimiter("document", concurrencyLimitProperties);
+    }
+
+    @Bean
+    public FilterRegistrationBean accessConcurrencyLimitFilter(@Qualifier("decisionConcurrencyLimiter") AdaptiveConcurrencyLimiter decisionConcurrencyLimiter,
+                                                               @Qualifier("documentConcurrencyLimiter") AdaptiveConcurrencyLimiter documentConcurrencyLimiter,
+                                                               ConcurrencyLimitProperties concurrencyLimitProperties) {
+        final FilterRegistrationBean registration = new FilterRegistrationBean(
+                new ConcurrencyLimitFilter(decisionConcurrencyLimiter, documentConcurrencyLimiter,
+                        concurrencyLimitProperties.getDocumentRequestThresholdInBytes(), concurrencyLimitProperties.getRetryAfterInSeconds()));
+        registration.addUrlPatterns("/access", "/access/*");
+        registration.setOrder(AccessFilterOrder.CONCURRENCY_LIMIT);
+        return registration;
+    }
+}
@@ -0,0 +1,27 @@
+package gov.samhsa.c2s.pep.config;
+
+import gov.samhsa.c2s.pep.infrastructure.audit.DecisionAuditLog;
+import gov.samhsa.c2s.pep.infrastructure.audit.DecisionAuditProperties;
+import gov.samhsa.c2s.pep.infrastructure.audit.RingBufferDecisionAuditLog;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(DecisionAuditProperties.class)
+public class DecisionAuditConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "c2s.pep.decision-audit", name = "enabled", matchIfMissing = true)
+    public RingBufferDecisionAuditLog decisionAuditLog(DecisionAuditProperties decisionAuditProperties) {
+        return new RingBufferDecisionAuditLog(decisionAuditProperties);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(DecisionAuditLog.class)
+    public DecisionAuditLog disabledDecisionAuditLog() {
+        return DecisionAuditLog.DISABLED;
+    }
+}
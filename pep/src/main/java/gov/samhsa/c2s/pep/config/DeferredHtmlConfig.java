@@ -0,0 +1,16 @@
+package gov.samhsa.c2s.pep.config;
+
+import gov.samhsa.c2s.pep.service.DeferredHtmlStore;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(DeferredHtmlProperties.class)
+public class DeferredHtmlConfig {
+
+    @Bean
+    public DeferredHtmlStore deferredHtmlStore(DeferredHtmlProperties deferredHtmlProperties) {
+        return new DeferredHtmlStore(deferredHtmlProperties.getTimeToLiveInSeconds(), deferredHtmlProperties.getMaximumSizeInBytes());
+    }
+}
@@ -0,0 +1,23 @@
+package gov.samhsa.c2s.pep.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import javax.validation.constraints.Min;
+
+@Data
+@ConfigurationProperties(prefix = "c2s.pep.deferred-html")
+public class DeferredHtmlProperties {
+
+    /**
+     * Time in seconds a render handle returned by /access can be used to retrieve the HTML
+     */
+    @Min(1)
+    private long timeToLiveInSeconds = 300;
+
+    /**
+     * Maximum total size of the documents and rendered HTML kept for render handles, oldest handles are evicted first
+     */
+    @Min(1)
+    private long maximumSizeInBytes = 128L * 1024 * 1024;
+}
@@ -0,0 +1,36 @@
+package gov.samhsa.c2s.pep.config;
+
+import gov.samhsa.c2s.pep.service.CdaDocumentValidator;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableConfigurationProperties(DocumentValidationProperties.class)
+public class DocumentValidationConfig {
+
+    /**
+     * Validation is CPU-bound, so the pool is sized to the processors and a full queue falls back to validating on the
+     * request thread instead of rejecting the request
+     */
+    @Bean
+    public ThreadPoolTaskExecutor documentValidationExecutor(DocumentValidationProperties documentValidationProperties) {
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(documentValidationProperties.getPoolSize());
+        executor.setMaxPoolSize(documentValidationProperties.getPoolSize());
+        executor.setQueueCapacity(documentValidationProperties.getQueueCapacity());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("document-validation-");
+        return executor;
+    }
+
+    @Bean
+    public CdaDocumentValidator cdaDocumentValidator(@Qualifier("documentValidationExecutor") ThreadPoolTaskExecutor documentValidationExecutor,
+                                                     DocumentValidationProperties documentValidationProperties) {
+        return new CdaDocumentValidator(documentValidationExecutor, documentValidationProperties.isEnabled());
+    }
+}
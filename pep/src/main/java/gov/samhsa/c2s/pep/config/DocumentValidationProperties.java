@@ -0,0 +1,28 @@
+package gov.samhsa.c2s.pep.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import javax.validation.constraints.Min;
+
+@Data
+@ConfigurationProperties(prefix = "c2s.pep.document-validation")
+public class DocumentValidationProperties {
+
+    /**
+     * Checks that documents are well-formed CDA documents while the policy decision is evaluated, before calling DSS
+     */
+    private boolean enabled = true;
+
+    /**
+     * Number of threads validating documents, defaults to the number of available processors
+     */
+    @Min(1)
+    private int poolSize = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Maximum number of documents waiting for validation, further documents are validated on the request thread
+     */
+    @Min(0)
+    private int queueCapacity = 100;
+}
@@ -0,0 +1,54 @@
+package gov.samhsa.c2s.pep.config;
+
+import feign.RequestInterceptor;
+import feign.codec.Decoder;
+import feign.codec.ErrorDecoder;
+import gov.samhsa.c2s.pep.infrastructure.feign.BadRequestAwareErrorDecoder;
+import gov.samhsa.c2s.pep.infrastructure.feign.CompressingRequestInterceptor;
+import gov.samhsa.c2s.pep.infrastructure.feign.DecompressingDecoder;
+import gov.samhsa.c2s.pep.infrastructure.feign.FeignCompressionProperties;
+import gov.samhsa.c2s.pep.infrastructure.feign.HttpClientPoolProperties;
+import gov.samhsa.c2s.pep.infrastructure.feign.PooledHttpClients;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.boot.autoconfigure.web.HttpMessageConverters;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.netflix.feign.support.ResponseEntityDecoder;
+import org.springframework.cloud.netflix.feign.support.SpringDecoder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Default configuration shared by the context-handler and dss feign clients. Each client runs in its own hystrix
+ * thread pool with its own timeouts and circuit breaker, see the hystrix and ribbon settings in application.yml.
+ */
+@Configuration
+@EnableConfigurationProperties({FeignCompressionProperties.class, HttpClientPoolProperties.class})
+public class FeignClientConfig {
+
+    @Bean
+    public ErrorDecoder feignErrorDecoder() {
+        return new BadRequestAwareErrorDecoder();
+    }
+
+    @Bean
+    public RequestInterceptor feignCompressionInterceptor(FeignCompressionProperties feignCompressionProperties) {
+        return new CompressingRequestInterceptor(feignCompressionProperties);
+    }
+
+    /**
+     * The default spring decoder, decompressing gzip and deflate encoded responses first
+     */
+    @Bean
+    public Decoder feignDecoder(ObjectFactory<HttpMessageConverters> messageConverters) {
+        return new DecompressingDecoder(new ResponseEntityDecoder(new SpringDecoder(messageConverters)));
+    }
+
+    /**
+     * The pooled HTTP clients of the downstream services, used by the feign clients through
+     * {@link gov.samhsa.c2s.pep.infrastructure.feign.PooledFeignClientConfiguration}
+     */
+    @Bean
+    public PooledHttpClients pooledHttpClients(HttpClientPoolProperties httpClientPoolProperties) {
+        return new PooledHttpClients(httpClientPoolProperties);
+    }
+}
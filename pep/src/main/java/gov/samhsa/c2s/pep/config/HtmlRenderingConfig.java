@@ -0,0 +1,41 @@
+package gov.samhsa.c2s.pep.config;
+
+import gov.samhsa.c2s.pep.service.AccessMetrics;
+import gov.samhsa.c2s.pep.service.HtmlRenderingExecutor;
+import gov.samhsa.c2s.pep.service.OutputBufferPool;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableConfigurationProperties(HtmlRenderingProperties.class)
+public class HtmlRenderingConfig {
+
+    /**
+     * XSLT rendering is CPU-bound, so the pool is sized to the processors independently of the servlet thread pool
+     */
+    @Bean
+    public ThreadPoolTaskExecutor htmlRenderingThreadPool(HtmlRenderingProperties htmlRenderingProperties) {
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(htmlRenderingProperties.getPoolSize());
+        executor.setMaxPoolSize(htmlRenderingProperties.getPoolSize());
+        executor.setQueueCapacity(htmlRenderingProperties.getQueueCapacity());
+        executor.setRejectedExecutionHandler(htmlRenderingProperties.getRejectionPolicy() == HtmlRenderingProperties.RejectionPolicy.CALLER_RUNS ?
+                new ThreadPoolExecutor.CallerRunsPolicy() : new ThreadPoolExecutor.AbortPolicy());
+        executor.setThreadNamePrefix("html-rendering-");
+        return executor;
+    }
+
+    @Bean
+    public HtmlRenderingExecutor htmlRenderingExecutor(@Qualifier("htmlRenderingThreadPool") ThreadPoolTaskExecutor htmlRenderingThreadPool,
+                                                       AccessMetrics accessMetrics, OutputBufferPool outputBufferPool,
+                                                       HtmlRenderingProperties htmlRenderingProperties) {
+        return new HtmlRenderingExecutor(htmlRenderingThreadPool.getThreadPoolExecutor(), accessMetrics, outputBufferPool,
+                htmlRenderingProperties.getStreamChunkSizeInBytes(), htmlRenderingProperties.getStreamQueueCapacityInChunks(),
+                htmlRenderingProperties.getStreamStallTimeoutInMillis());
+    }
+}
@@ -0,0 +1,60 @@
+package gov.samhsa.c2s.pep.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+@Data
+@ConfigurationProperties(prefix = "c2s.pep.html-rendering")
+public class HtmlRenderingProperties {
+
+    /**
+     * Number of threads rendering segmented documents to HTML, defaults to the number of available processors
+     */
+    @Min(1)
+    private int poolSize = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Maximum number of renderings waiting for a thread, further renderings are handled by the rejection policy
+     */
+    @Min(0)
+    private int queueCapacity = 50;
+
+    /**
+     * Handling of renderings that do not fit in the queue
+     */
+    @NotNull
+    private RejectionPolicy rejectionPolicy = RejectionPolicy.REJECT;
+
+    /**
+     * Size in bytes of the chunks in which streamed HTML is handed from the rendering thread to the response
+     */
+    @Min(1024)
+    private int streamChunkSizeInBytes = 65536;
+
+    /**
+     * Maximum number of rendered chunks of a stream waiting to be written to the client, the rendering waits while
+     * they are all queued
+     */
+    @Min(1)
+    private int streamQueueCapacityInChunks = 16;
+
+    /**
+     * Maximum time a streamed rendering waits for the client to read its queued chunks before it is aborted
+     */
+    @Min(1)
+    private long streamStallTimeoutInMillis = 30000;
+
+    public enum RejectionPolicy {
+        /**
+         * Fails the request with 503
+         */
+        REJECT,
+        /**
+         * Renders on the request thread, which is no longer bounded by the pool size
+         */
+        CALLER_RUNS
+    }
+}
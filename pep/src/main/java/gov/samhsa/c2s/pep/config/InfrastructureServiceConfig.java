@@ -0,0 +1,107 @@
+package gov.samhsa.c2s.pep.config;
+
+import gov.samhsa.c2s.pep.infrastructure.ContextHandlerService;
+import gov.samhsa.c2s.pep.infrastructure.DssService;
+import gov.samhsa.c2s.pep.infrastructure.cache.CachingContextHandlerService;
+import gov.samhsa.c2s.pep.infrastructure.cache.CachingDssService;
+import gov.samhsa.c2s.pep.infrastructure.cache.DecisionCache;
+import gov.samhsa.c2s.pep.infrastructure.cache.DecisionCacheMvcEndpoint;
+import gov.samhsa.c2s.pep.infrastructure.cache.DecisionCacheProperties;
+import gov.samhsa.c2s.pep.infrastructure.cache.SegmentationCache;
+import gov.samhsa.c2s.pep.infrastructure.cache.SegmentationCacheKey;
+import gov.samhsa.c2s.pep.infrastructure.cache.SegmentationCacheProperties;
+import gov.samhsa.c2s.pep.infrastructure.coalescing.CoalescingContextHandlerService;
+import gov.samhsa.c2s.pep.infrastructure.coalescing.CoalescingDssService;
+import gov.samhsa.c2s.pep.infrastructure.coalescing.CoalescingProperties;
+import gov.samhsa.c2s.pep.infrastructure.coalescing.SingleFlight;
+import gov.samhsa.c2s.pep.infrastructure.dto.DSSResponse;
+import gov.samhsa.c2s.pep.infrastructure.dto.XacmlRequestDto;
+import gov.samhsa.c2s.pep.infrastructure.dto.XacmlResponseDto;
+import gov.samhsa.c2s.pep.infrastructure.metrics.TimedContextHandlerService;
+import gov.samhsa.c2s.pep.infrastructure.metrics.TimedDssService;
+import gov.samhsa.c2s.pep.service.AccessMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.Optional;
+
+/**
+ * Decorates the feign clients with the optional in-process features configured for each downstream service.
+ */
+@Configuration
+@EnableConfigurationProperties({DecisionCacheProperties.class, SegmentationCacheProperties.class, CoalescingProperties.class})
+public class InfrastructureServiceConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "c2s.pep.decision-cache", name = "enabled")
+    public DecisionCache decisionCache(DecisionCacheProperties decisionCacheProperties) {
+        return new DecisionCache(decisionCacheProperties);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "c2s.pep.decision-cache", name = "enabled")
+    public DecisionCacheMvcEndpoint decisionCacheMvcEndpoint(DecisionCache decisionCache) {
+        return new DecisionCacheMvcEndpoint(decisionCache);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "c2s.pep.segmentation-cache", name = "enabled")
+    public SegmentationCache segmentationCache(SegmentationCacheProperties segmentationCacheProperties) {
+        return new SegmentationCache(segmentationCacheProperties);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "c2s.pep.coalescing", name = "context-handler-enabled", matchIfMissing = true)
+    public SingleFlight<XacmlRequestDto, XacmlResponseDto> contextHandlerSingleFlight(CoalescingProperties coalescingProperties) {
+        return new SingleFlight<>("context-handler", coalescingProperties.getContextHandlerWaitTimeoutInMillis());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "c2s.pep.coalescing", name = "dss-enabled", matchIfMissing = true)
+    public SingleFlight<SegmentationCacheKey, DSSResponse> dssSingleFlight(CoalescingProperties coalescingProperties) {
+        return new SingleFlight<>("dss", coalescingProperties.getDssWaitTimeoutInMillis());
+    }
+
+    /**
+     * The cache is applied in front of the coalescing so that cache hits never wait for an in-flight call. Only the
+     * calls of the feign client itself are timed as the PDP stage.
+     */
+    @Bean
+    @Primary
+    public ContextHandlerService contextHandlerService(@Qualifier(ContextHandlerService.CLIENT_QUALIFIER) ContextHandlerService contextHandlerClient,
+                                                       Optional<SingleFlight<XacmlRequestDto, XacmlResponseDto>> contextHandlerSingleFlight,
+                                                       Optional<DecisionCache> decisionCache,
+                                                       AccessMetrics accessMetrics) {
+        ContextHandlerService contextHandlerService = new TimedContextHandlerService(contextHandlerClient, accessMetrics);
+        if (contextHandlerSingleFlight.isPresent()) {
+            contextHandlerService = new CoalescingContextHandlerService(contextHandlerService, contextHandlerSingleFlight.get());
+        }
+        if (decisionCache.isPresent()) {
+            contextHandlerService = new CachingContextHandlerService(contextHandlerService, decisionCache.get());
+        }
+        return contextHandlerService;
+    }
+
+    /**
+     * Only the calls of the feign client itself are timed as the DSS stage.
+     */
+    @Bean
+    @Primary
+    public DssService dssService(@Qualifier(DssService.CLIENT_QUALIFIER) DssService dssClient,
+                                 Optional<SingleFlight<SegmentationCacheKey, DSSResponse>> dssSingleFlight,
+                                 Optional<SegmentationCache> segmentationCache,
+                                 AccessMetrics accessMetrics) {
+        DssService dssService = new TimedDssService(dssClient, accessMetrics);
+        if (dssSingleFlight.isPresent()) {
+            dssService = new CoalescingDssService(dssService, dssSingleFlight.get());
+        }
+        if (segmentationCache.isPresent()) {
+            dssService = new CachingDssService(dssService, segmentationCache.get());
+        }
+        return dssService;
+    }
+}
@@ -0,0 +1,19 @@
+package gov.samhsa.c2s.pep.config;
+
+import gov.samhsa.c2s.pep.logging.LoggingMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Reports the state of the non-blocking logging pipeline configured in {@code logback-spring.xml}.
+ */
+@Configuration
+@ConditionalOnClass(name = "ch.qos.logback.classic.LoggerContext")
+public class LoggingMetricsConfig {
+
+    @Bean
+    public LoggingMetrics loggingMetrics() {
+        return new LoggingMetrics();
+    }
+}
@@ -0,0 +1,34 @@
+package gov.samhsa.c2s.pep.config;
+
+import gov.samhsa.c2s.pep.web.limit.MemoryBudget;
+import gov.samhsa.c2s.pep.web.limit.MemoryBudgetFilter;
+import gov.samhsa.c2s.pep.web.limit.MemoryBudgetProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Admits /access requests only while the estimated heap use of the documents in flight fits in the memory budget.
+ */
+@Configuration
+@EnableConfigurationProperties(MemoryBudgetProperties.class)
+@ConditionalOnProperty(prefix = "c2s.pep.memory-budget", name = "enabled", matchIfMissing = true)
+public class MemoryBudgetConfig {
+
+    @Bean
+    public MemoryBudget accessMemoryBudget(MemoryBudgetProperties memoryBudgetProperties) {
+        return new MemoryBudget(memoryBudgetProperties.getMaxInFlightBytes());
+    }
+
+    @Bean
+    public FilterRegistrationBean accessMemoryBudgetFilter(MemoryBudget accessMemoryBudget,
+                                                           MemoryBudgetProperties memoryBudgetProperties) {
+        final FilterRegistrationBean registration = new FilterRegistrationBean(
+                new MemoryBudgetFilter(accessMemoryBudget, memoryBudgetProperties));
+        registration.addUrlPatterns("/access", "/access/*");
+        registration.setOrder(AccessFilterOrder.MEMORY_BUDGET);
+        return registration;
+    }
+}
@@ -0,0 +1,16 @@
+package gov.samhsa.c2s.pep.config;
+
+import gov.samhsa.c2s.pep.service.OutputBufferPool;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(OutputBufferPoolProperties.class)
+public class OutputBufferPoolConfig {
+
+    @Bean
+    public OutputBufferPool outputBufferPool(OutputBufferPoolProperties outputBufferPoolProperties) {
+        return new OutputBufferPool(outputBufferPoolProperties.getPoolSize(), outputBufferPoolProperties.getMaxRetainedSizeInBytes());
+    }
+}
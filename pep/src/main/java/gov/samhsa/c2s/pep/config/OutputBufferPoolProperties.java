@@ -0,0 +1,23 @@
+package gov.samhsa.c2s.pep.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import javax.validation.constraints.Min;
+
+@Data
+@ConfigurationProperties(prefix = "c2s.pep.output-buffer-pool")
+public class OutputBufferPoolProperties {
+
+    /**
+     * Maximum number of idle buffers kept for reuse
+     */
+    @Min(1)
+    private int poolSize = 16;
+
+    /**
+     * Buffers that grew above this size in bytes are not kept for reuse
+     */
+    @Min(1024)
+    private int maxRetainedSizeInBytes = 8388608;
+}
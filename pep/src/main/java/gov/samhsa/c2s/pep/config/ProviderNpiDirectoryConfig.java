@@ -0,0 +1,28 @@
+package gov.samhsa.c2s.pep.config;
+
+import gov.samhsa.c2s.pep.infrastructure.npi.ProviderNpiDirectory;
+import gov.samhsa.c2s.pep.infrastructure.npi.ProviderNpiDirectoryProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.nio.file.Paths;
+
+/**
+ * Replaces the provider mappings of c2s.pep.providers with the file-backed provider directory when a directory file is
+ * configured.
+ */
+@Configuration
+@EnableConfigurationProperties(ProviderNpiDirectoryProperties.class)
+@ConditionalOnProperty(prefix = "c2s.pep.provider-directory", name = "file")
+public class ProviderNpiDirectoryConfig {
+
+    @Bean
+    @Primary
+    public ProviderNpiDirectory providerNpiDirectory(ProviderNpiDirectoryProperties providerNpiDirectoryProperties) {
+        return new ProviderNpiDirectory(Paths.get(providerNpiDirectoryProperties.getFile()),
+                providerNpiDirectoryProperties.getExpectedSize(), providerNpiDirectoryProperties.getReloadIntervalInSeconds());
+    }
+}
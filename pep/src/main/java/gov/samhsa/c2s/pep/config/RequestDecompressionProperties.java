@@ -0,0 +1,22 @@
+package gov.samhsa.c2s.pep.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import javax.validation.constraints.Min;
+
+@Data
+@ConfigurationProperties(prefix = "c2s.pep.request-decompression")
+public class RequestDecompressionProperties {
+
+    /**
+     * Accepts /access requests sent with Content-Encoding: gzip when enabled
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum decompressed size of a request body, larger bodies are rejected with 413 while they are read
+     */
+    @Min(1)
+    private long maxDecompressedSizeInBytes = 73400320;
+}
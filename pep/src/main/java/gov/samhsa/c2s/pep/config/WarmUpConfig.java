@@ -0,0 +1,39 @@
+package gov.samhsa.c2s.pep.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.appinfo.ApplicationInfoManager;
+import gov.samhsa.c2s.pep.infrastructure.ContextHandlerService;
+import gov.samhsa.c2s.pep.infrastructure.DssService;
+import gov.samhsa.c2s.pep.infrastructure.feign.PooledHttpClients;
+import gov.samhsa.c2s.pep.service.CdaDocumentValidator;
+import gov.samhsa.c2s.pep.service.CdaHtmlRenderer;
+import gov.samhsa.c2s.pep.warmup.WarmUp;
+import gov.samhsa.c2s.pep.warmup.WarmUpProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.netflix.ribbon.SpringClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The warm-up uses the undecorated feign clients, so that its synthetic calls are neither cached nor coalesced.
+ */
+@Configuration
+@EnableConfigurationProperties(WarmUpProperties.class)
+public class WarmUpConfig {
+
+    @Bean
+    public WarmUp warmUp(WarmUpProperties warmUpProperties,
+                         ObjectMapper objectMapper,
+                         CdaDocumentValidator cdaDocumentValidator,
+                         CdaHtmlRenderer cdaHtmlRenderer,
+                         PooledHttpClients pooledHttpClients,
+                         SpringClientFactory springClientFactory,
+                         @Qualifier(ContextHandlerService.CLIENT_QUALIFIER) ContextHandlerService contextHandlerClient,
+                         @Qualifier(DssService.CLIENT_QUALIFIER) DssService dssClient,
+                         ObjectProvider<ApplicationInfoManager> applicationInfoManager) {
+        return new WarmUp(warmUpProperties, objectMapper, cdaDocumentValidator, cdaHtmlRenderer, pooledHttpClients,
+                springClientFactory, contextHandlerClient, dssClient, applicationInfoManager);
+    }
+}
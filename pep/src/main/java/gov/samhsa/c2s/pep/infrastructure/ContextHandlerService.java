@@ -10,9 +10,14 @@
 
 import javax.validation.Valid;
 
-@FeignClient("context-handler")
+@FeignClient(name = "context-handler", qualifier = ContextHandlerService.CLIENT_QUALIFIER, primary = false)
 public interface ContextHandlerService {
 
+    /**
+     * Qualifier of the context-handler feign client, the primary {@link ContextHandlerService} bean decorates it
+     */
+    String CLIENT_QUALIFIER = "contextHandlerClient";
+
     @RequestMapping(value = "/policyEnforcement", method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_UTF8_VALUE)
     XacmlResponseDto enforcePolicy(@Valid @RequestBody XacmlRequestDto xacmlRequest);
 }
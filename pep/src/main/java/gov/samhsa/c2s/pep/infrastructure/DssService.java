@@ -10,9 +10,14 @@
 
 import javax.validation.Valid;
 
-@FeignClient("dss")
+@FeignClient(name = "dss", qualifier = DssService.CLIENT_QUALIFIER, primary = false)
 public interface DssService {
 
+    /**
+     * Qualifier of the dss feign client, the primary {@link DssService} bean decorates it
+     */
+    String CLIENT_QUALIFIER = "dssClient";
+
     @RequestMapping(value = "/segmentedDocument", method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_UTF8_VALUE)
     DSSResponse segmentDocument(@Valid @RequestBody DSSRequest request);
 }
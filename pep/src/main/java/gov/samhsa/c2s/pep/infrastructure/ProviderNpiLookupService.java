@@ -1,6 +1,8 @@
 package gov.samhsa.c2s.pep.infrastructure;
 
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 
 public interface ProviderNpiLookupService {
 
@@ -8,4 +10,21 @@ public interface ProviderNpiLookupService {
      * @return username -> NPI mappings
      */
     Map<String, String> getUsers();
+
+    /**
+     * @return the NPI of the provider user
+     */
+    default Optional<String> findNpi(String username) {
+        return Optional.ofNullable(getUsers().get(username));
+    }
+
+    /**
+     * @return the username of the provider with the NPI, the first one if several users share the NPI
+     */
+    default Optional<String> findUsername(String npi) {
+        return getUsers().entrySet().stream()
+                .filter(user -> Objects.equals(npi, user.getValue()))
+                .map(Map.Entry::getKey)
+                .findFirst();
+    }
 }
@@ -0,0 +1,15 @@
+package gov.samhsa.c2s.pep.infrastructure.audit;
+
+/**
+ * Durable trail of the policy decisions of PEP. Implementations must not block the caller on I/O.
+ */
+public interface DecisionAuditLog {
+
+    /**
+     * Audit log that discards the records, used when the decision audit is disabled
+     */
+    DecisionAuditLog DISABLED = record -> {
+    };
+
+    void record(DecisionAuditRecord record);
+}
@@ -0,0 +1,70 @@
+package gov.samhsa.c2s.pep.infrastructure.audit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+@Data
+@ConfigurationProperties(prefix = "c2s.pep.decision-audit")
+public class DecisionAuditProperties {
+
+    /**
+     * Writes an audit record of each policy decision to the decision audit directory
+     */
+    private boolean enabled = true;
+
+    /**
+     * Directory of the decision audit segment files
+     */
+    @NotNull
+    private String directory = "decision-audit";
+
+    /**
+     * Number of records the ring buffer holds before the overflow policy applies, rounded up to a power of two
+     */
+    @Min(2)
+    private int bufferSize = 8192;
+
+    /**
+     * Maximum number of records written and flushed together
+     */
+    @Min(1)
+    private int batchSize = 256;
+
+    /**
+     * Handling of records when the ring buffer is full
+     */
+    @NotNull
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+    /**
+     * Size in bytes after which a new segment file is started
+     */
+    @Min(1024)
+    private long maxSegmentSizeInBytes = 67108864;
+
+    /**
+     * Number of segment files kept, older segments are deleted, 0 keeps all segments
+     */
+    @Min(0)
+    private int maxSegments = 100;
+
+    /**
+     * Forces each written batch to the storage device, which survives an operating system crash at the cost of
+     * write throughput
+     */
+    private boolean syncOnWrite = false;
+
+    public enum OverflowPolicy {
+        /**
+         * Drops the record and counts it, the request is not delayed
+         */
+        DROP,
+        /**
+         * Waits for the writer to free space, no record is lost but requests are delayed while the writer lags
+         */
+        BLOCK
+    }
+}
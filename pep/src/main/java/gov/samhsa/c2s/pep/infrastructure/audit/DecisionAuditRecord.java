@@ -0,0 +1,93 @@
+package gov.samhsa.c2s.pep.infrastructure.audit;
+
+import gov.samhsa.c2s.pep.infrastructure.dto.XacmlRequestDto;
+import gov.samhsa.c2s.pep.infrastructure.dto.XacmlResult;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Audit record of a policy decision made for an /access request and of the outcome of the request.
+ */
+@Value
+@Builder
+public class DecisionAuditRecord {
+
+    /**
+     * Time the record was created, in milliseconds since the epoch
+     */
+    long timestamp;
+
+    String messageId;
+
+    String patientId;
+
+    String homeCommunityId;
+
+    String recipientNpi;
+
+    String intermediaryNpi;
+
+    String purposeOfUse;
+
+    String decision;
+
+    List<String> obligations;
+
+    Outcome outcome;
+
+    public static DecisionAuditRecord of(XacmlRequestDto xacmlRequest, XacmlResult xacmlResult, Outcome outcome) {
+        return DecisionAuditRecord.builder()
+                .timestamp(System.currentTimeMillis())
+                .messageId(xacmlResult.getMessageId())
+                .patientId(xacmlResult.getPatientId())
+                .homeCommunityId(xacmlResult.getHomeCommunityId())
+                .recipientNpi(xacmlRequest.getRecipientNpi())
+                .intermediaryNpi(xacmlRequest.getIntermediaryNpi())
+                .purposeOfUse(xacmlResult.getSubjectPurposeOfUse() != null ? xacmlResult.getSubjectPurposeOfUse().getPurpose() : null)
+                .decision(xacmlResult.getPdpDecision())
+                .obligations(xacmlResult.getPdpObligations())
+                .outcome(outcome)
+                .build();
+    }
+
+    /**
+     * Creates the record of a request for which the PDP returned no decision.
+     */
+    public static DecisionAuditRecord of(XacmlRequestDto xacmlRequest, Outcome outcome) {
+        return DecisionAuditRecord.builder()
+                .timestamp(System.currentTimeMillis())
+                .patientId(xacmlRequest.getPatientId() != null ? xacmlRequest.getPatientId().getExtension() : null)
+                .homeCommunityId(xacmlRequest.getPatientId() != null ? xacmlRequest.getPatientId().getRoot() : null)
+                .recipientNpi(xacmlRequest.getRecipientNpi())
+                .intermediaryNpi(xacmlRequest.getIntermediaryNpi())
+                .purposeOfUse(xacmlRequest.getPurposeOfUse() != null ? xacmlRequest.getPurposeOfUse().getPurpose() : null)
+                .outcome(outcome)
+                .build();
+    }
+
+    public enum Outcome {
+        /**
+         * The PDP denied the access, no document was returned
+         */
+        DENIED,
+        /**
+         * The PDP permitted the access and the decision was returned without a document
+         */
+        PERMITTED,
+        /**
+         * The PDP permitted the access and the segmented document was returned
+         */
+        SEGMENTED,
+        /**
+         * The context-handler found no consent for the patient, no decision was made and no document was returned
+         */
+        NO_CONSENT,
+        /**
+         * The request failed, either the PDP call itself (without a decision) or after a permit decision, e.g. the
+         * document was invalid or DSS failed
+         */
+        FAILED
+    }
+}
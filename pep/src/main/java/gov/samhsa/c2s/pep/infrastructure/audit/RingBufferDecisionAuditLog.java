@@ -0,0 +1,154 @@
+package gov.samhsa.c2s.pep.infrastructure.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import gov.samhsa.c2s.common.log.Logger;
+import gov.samhsa.c2s.common.log.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Decision audit log that hands the records to a lock-free ring buffer and writes them as JSON lines in batches from a
+ * single writer thread to rotated segment files, so that request threads never wait for I/O. Each batch is flushed
+ * when it is written. When the buffer is full, records are dropped and counted or the caller waits for space,
+ * depending on the overflow policy.
+ * <p>
+ * Published as {@code pep.decision-audit.written|dropped|failed|batches|bytes|pending|lag-in-millis}, where the lag is
+ * the age of the oldest record of the last written batch.
+ */
+public class RingBufferDecisionAuditLog implements DecisionAuditLog, PublicMetrics, Closeable {
+
+    private static final String METRIC_PREFIX = "pep.decision-audit.";
+    private static final long IDLE_WAIT_IN_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long BLOCK_WAIT_IN_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long CLOSE_TIMEOUT_IN_MILLIS = 5000;
+
+    private final Logger logger = LoggerFactory.getLogger(RingBufferDecisionAuditLog.class);
+
+    private final MpscRingBuffer<DecisionAuditRecord> buffer;
+
+    private final SegmentedFileWriter segmentedFileWriter;
+
+    private final ObjectWriter recordWriter = new ObjectMapper().writerFor(DecisionAuditRecord.class);
+
+    private final int batchSize;
+
+    private final boolean blockOnOverflow;
+
+    private final Thread writerThread;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final AtomicLong written = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    private final AtomicLong batches = new AtomicLong();
+
+    private final AtomicLong bytes = new AtomicLong();
+
+    private volatile long lagInMillis;
+
+    private volatile boolean running = true;
+
+    public RingBufferDecisionAuditLog(DecisionAuditProperties decisionAuditProperties) {
+        this.buffer = new MpscRingBuffer<>(decisionAuditProperties.getBufferSize());
+        this.segmentedFileWriter = new SegmentedFileWriter(Paths.get(decisionAuditProperties.getDirectory()), "decision-audit-",
+                decisionAuditProperties.getMaxSegmentSizeInBytes(), decisionAuditProperties.getMaxSegments(),
+                decisionAuditProperties.isSyncOnWrite());
+        this.batchSize = decisionAuditProperties.getBatchSize();
+        this.blockOnOverflow = decisionAuditProperties.getOverflowPolicy() == DecisionAuditProperties.OverflowPolicy.BLOCK;
+        this.writerThread = new Thread(this::writeLoop, "decision-audit-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+        logger.info("Writing decision audit records to " + decisionAuditProperties.getDirectory() +
+                " through a ring buffer of " + buffer.capacity() + " records");
+    }
+
+    @Override
+    public void record(DecisionAuditRecord record) {
+        while (!buffer.offer(record)) {
+            if (!blockOnOverflow || !running) {
+                dropped.incrementAndGet();
+                return;
+            }
+            LockSupport.parkNanos(BLOCK_WAIT_IN_NANOS);
+        }
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        final List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>(METRIC_PREFIX + "written", written.get()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "dropped", dropped.get()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "failed", failed.get()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "batches", batches.get()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "bytes", bytes.get()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "pending", buffer.size()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "lag-in-millis", lagInMillis));
+        return metrics;
+    }
+
+    /**
+     * Writes the buffered records and closes the current segment.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(CLOSE_TIMEOUT_IN_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        final List<DecisionAuditRecord> batch = new ArrayList<>(batchSize);
+        while (running || buffer.size() > 0) {
+            buffer.drain(batch::add, batchSize);
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(IDLE_WAIT_IN_NANOS);
+            } else {
+                writeBatch(batch);
+                batch.clear();
+            }
+        }
+        try {
+            segmentedFileWriter.close();
+        } catch (IOException e) {
+            logger.error("Unable to close the decision audit segment", e);
+        }
+    }
+
+    private void writeBatch(List<DecisionAuditRecord> batch) {
+        long batchBytes = 0;
+        try {
+            for (DecisionAuditRecord record : batch) {
+                final byte[] json = recordWriter.writeValueAsBytes(record);
+                segmentedFileWriter.writeLine(json);
+                batchBytes += json.length + 1;
+            }
+            segmentedFileWriter.flush();
+            written.addAndGet(batch.size());
+            batches.incrementAndGet();
+            bytes.addAndGet(batchBytes);
+            lagInMillis = System.currentTimeMillis() - batch.get(0).getTimestamp();
+        } catch (IOException | RuntimeException e) {
+            // Records of the batch that were buffered but not flushed may or may not have reached the segment
+            failed.addAndGet(batch.size());
+            logger.error("Unable to write " + batch.size() + " decision audit records", e);
+            segmentedFileWriter.reset();
+        }
+    }
+}
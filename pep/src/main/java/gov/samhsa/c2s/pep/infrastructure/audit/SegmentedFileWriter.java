@@ -0,0 +1,129 @@
+package gov.samhsa.c2s.pep.infrastructure.audit;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Appends to segment files of a directory, starting a new segment when the current one reaches the maximum size and
+ * deleting the oldest segments above the retained number. Segment names sort in creation order. Not thread-safe, it is
+ * used by a single writer thread.
+ */
+class SegmentedFileWriter implements Closeable {
+
+    private static final DateTimeFormatter SEGMENT_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmssSSS");
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int LINE_SEPARATOR = '\n';
+
+    private final Path directory;
+
+    private final String segmentPrefix;
+
+    private final long maxSegmentSizeInBytes;
+
+    private final int maxSegments;
+
+    private final boolean sync;
+
+    private FileOutputStream segment;
+
+    private OutputStream output;
+
+    private long segmentSize;
+
+    private int segmentSequence;
+
+    /**
+     * @param maxSegments number of segments kept, 0 keeps all segments
+     * @param sync        forces the written bytes to the storage device on each flush
+     */
+    SegmentedFileWriter(Path directory, String segmentPrefix, long maxSegmentSizeInBytes, int maxSegments, boolean sync) {
+        this.directory = directory;
+        this.segmentPrefix = segmentPrefix;
+        this.maxSegmentSizeInBytes = maxSegmentSizeInBytes;
+        this.maxSegments = maxSegments;
+        this.sync = sync;
+    }
+
+    /**
+     * Appends the bytes followed by a line separator, a line is never split across segments.
+     */
+    void writeLine(byte[] bytes) throws IOException {
+        if (output == null || segmentSize >= maxSegmentSizeInBytes) {
+            rotate();
+        }
+        output.write(bytes);
+        output.write(LINE_SEPARATOR);
+        segmentSize += bytes.length + 1;
+    }
+
+    void flush() throws IOException {
+        if (output != null) {
+            output.flush();
+            if (sync) {
+                segment.getChannel().force(false);
+            }
+        }
+    }
+
+    /**
+     * Closes the current segment after a write failure, the next write starts a new segment.
+     */
+    void reset() {
+        try {
+            close();
+        } catch (IOException e) {
+            // The segment is abandoned either way
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (output != null) {
+            try {
+                flush();
+                output.close();
+            } finally {
+                output = null;
+                segment = null;
+            }
+        }
+    }
+
+    private void rotate() throws IOException {
+        close();
+        Files.createDirectories(directory);
+        // The sequence is padded so that segments started in the same millisecond also sort in creation order
+        final String name = String.format("%s%s-%06d%s", segmentPrefix, LocalDateTime.now().format(SEGMENT_TIMESTAMP),
+                segmentSequence++, SEGMENT_SUFFIX);
+        segment = new FileOutputStream(directory.resolve(name).toFile(), true);
+        output = new BufferedOutputStream(segment, BUFFER_SIZE);
+        segmentSize = 0;
+        deleteOldSegments();
+    }
+
+    private void deleteOldSegments() throws IOException {
+        if (maxSegments == 0) {
+            return;
+        }
+        final List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, segmentPrefix + "*" + SEGMENT_SUFFIX)) {
+            files.forEach(segments::add);
+        }
+        Collections.sort(segments);
+        for (int i = 0; i < segments.size() - maxSegments; i++) {
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+}
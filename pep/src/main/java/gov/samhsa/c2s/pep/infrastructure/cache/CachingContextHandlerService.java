@@ -0,0 +1,43 @@
+package gov.samhsa.c2s.pep.infrastructure.cache;
+
+import gov.samhsa.c2s.common.log.Logger;
+import gov.samhsa.c2s.common.log.LoggerFactory;
+import gov.samhsa.c2s.pep.infrastructure.ContextHandlerService;
+import gov.samhsa.c2s.pep.infrastructure.dto.XacmlRequestDto;
+import gov.samhsa.c2s.pep.infrastructure.dto.XacmlResponseDto;
+
+import java.util.Optional;
+
+/**
+ * Serves recently evaluated policy decisions from the {@link DecisionCache} and only calls the context-handler on a
+ * cache miss. Failed calls are never cached, neither are decisions of a patient whose decisions were evicted while the
+ * context-handler was called.
+ */
+public class CachingContextHandlerService implements ContextHandlerService {
+
+    private final Logger logger = LoggerFactory.getLogger(CachingContextHandlerService.class);
+
+    private final ContextHandlerService delegate;
+
+    private final DecisionCache decisionCache;
+
+    public CachingContextHandlerService(ContextHandlerService delegate, DecisionCache decisionCache) {
+        this.delegate = delegate;
+        this.decisionCache = decisionCache;
+    }
+
+    @Override
+    public XacmlResponseDto enforcePolicy(XacmlRequestDto xacmlRequest) {
+        final Optional<XacmlResponseDto> cachedResponse = decisionCache.get(xacmlRequest);
+        if (cachedResponse.isPresent()) {
+            logger.debug(() -> "Using cached policy decision for " + xacmlRequest.toString());
+            return cachedResponse.get();
+        }
+        final long generation = decisionCache.generation(xacmlRequest);
+        final XacmlResponseDto xacmlResponse = delegate.enforcePolicy(xacmlRequest);
+        if (!decisionCache.put(xacmlRequest, xacmlResponse, generation)) {
+            logger.debug(() -> "Not caching policy decision evaluated during an eviction for " + xacmlRequest.toString());
+        }
+        return xacmlResponse;
+    }
+}
@@ -0,0 +1,40 @@
+package gov.samhsa.c2s.pep.infrastructure.cache;
+
+import gov.samhsa.c2s.common.log.Logger;
+import gov.samhsa.c2s.common.log.LoggerFactory;
+import gov.samhsa.c2s.pep.infrastructure.DssService;
+import gov.samhsa.c2s.pep.infrastructure.dto.DSSRequest;
+import gov.samhsa.c2s.pep.infrastructure.dto.DSSResponse;
+
+import java.util.Optional;
+
+/**
+ * Serves segmentation results of byte-identical documents segmented under the same obligations from the
+ * {@link SegmentationCache} and only calls the DSS on a cache miss. Failed calls are never cached.
+ */
+public class CachingDssService implements DssService {
+
+    private final Logger logger = LoggerFactory.getLogger(CachingDssService.class);
+
+    private final DssService delegate;
+
+    private final SegmentationCache segmentationCache;
+
+    public CachingDssService(DssService delegate, SegmentationCache segmentationCache) {
+        this.delegate = delegate;
+        this.segmentationCache = segmentationCache;
+    }
+
+    @Override
+    public DSSResponse segmentDocument(DSSRequest request) {
+        final SegmentationCacheKey key = SegmentationCacheKey.from(request);
+        final Optional<DSSResponse> cachedResponse = segmentationCache.get(key);
+        if (cachedResponse.isPresent()) {
+            logger.debug(() -> "Using cached segmentation result for " + key.toString());
+            return cachedResponse.get();
+        }
+        final DSSResponse dssResponse = delegate.segmentDocument(request);
+        segmentationCache.put(key, dssResponse);
+        return dssResponse;
+    }
+}
@@ -0,0 +1,146 @@
+package gov.samhsa.c2s.pep.infrastructure.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import gov.samhsa.c2s.pep.infrastructure.dto.PatientIdDto;
+import gov.samhsa.c2s.pep.infrastructure.dto.XacmlRequestDto;
+import gov.samhsa.c2s.pep.infrastructure.dto.XacmlResponseDto;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded in-process cache of context-handler policy decisions keyed on the complete {@link XacmlRequestDto}.
+ * <p>
+ * Evictions bump an eviction generation of the patient, striped by patient id. A decision is only put if the
+ * generation of its patient is unchanged since the context-handler was called, so a decision that was in flight while
+ * the patient's decisions were evicted is not cached after the eviction.
+ */
+public class DecisionCache implements PublicMetrics {
+
+    private static final String METRIC_PREFIX = "pep.decision-cache.";
+
+    private static final int GENERATION_STRIPES = 256;
+
+    private final Cache<XacmlRequestDto, XacmlResponseDto> cache;
+
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    /**
+     * Puts hold the read lock and evictions the write lock, so that an eviction cannot run between the generation
+     * check and the put
+     */
+    private final ReadWriteLock evictionLock = new ReentrantReadWriteLock();
+
+    public DecisionCache(DecisionCacheProperties decisionCacheProperties) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(decisionCacheProperties.getTimeToLiveInSeconds(), TimeUnit.SECONDS)
+                .maximumSize(decisionCacheProperties.getMaximumSize())
+                .recordStats()
+                .build();
+    }
+
+    public Optional<XacmlResponseDto> get(XacmlRequestDto xacmlRequest) {
+        return Optional.ofNullable(cache.getIfPresent(xacmlRequest));
+    }
+
+    /**
+     * @return the eviction generation of the patient of the request, to be read before the context-handler is called
+     * and passed to {@link #put(XacmlRequestDto, XacmlResponseDto, long)}
+     */
+    public long generation(XacmlRequestDto xacmlRequest) {
+        return generations.get(stripe(patientIdOf(xacmlRequest)));
+    }
+
+    /**
+     * Caches the decision unless decisions of its patient were evicted since the given generation was read
+     *
+     * @return true if the decision was cached
+     */
+    public boolean put(XacmlRequestDto xacmlRequest, XacmlResponseDto xacmlResponse, long generation) {
+        evictionLock.readLock().lock();
+        try {
+            if (generations.get(stripe(patientIdOf(xacmlRequest))) != generation) {
+                return false;
+            }
+            cache.put(xacmlRequest, xacmlResponse);
+            return true;
+        } finally {
+            evictionLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Evicts all cached decisions of the patient with the given MRN
+     *
+     * @return the number of evicted decisions
+     */
+    public int evictByPatientId(String patientId) {
+        evictionLock.writeLock().lock();
+        try {
+            generations.incrementAndGet(stripe(patientId));
+            final List<XacmlRequestDto> patientKeys = cache.asMap().keySet().stream()
+                    .filter(xacmlRequest -> Optional.ofNullable(patientIdOf(xacmlRequest))
+                            .filter(patientId::equals)
+                            .isPresent())
+                    .collect(Collectors.toList());
+            cache.invalidateAll(patientKeys);
+            return patientKeys.size();
+        } finally {
+            evictionLock.writeLock().unlock();
+        }
+    }
+
+    public void evictAll() {
+        evictionLock.writeLock().lock();
+        try {
+            for (int i = 0; i < GENERATION_STRIPES; i++) {
+                generations.incrementAndGet(i);
+            }
+            cache.invalidateAll();
+        } finally {
+            evictionLock.writeLock().unlock();
+        }
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private static String patientIdOf(XacmlRequestDto xacmlRequest) {
+        return Optional.ofNullable(xacmlRequest.getPatientId())
+                .map(PatientIdDto::getExtension)
+                .orElse(null);
+    }
+
+    private static int stripe(String patientId) {
+        return patientId == null ? 0 : (patientId.hashCode() & Integer.MAX_VALUE) % GENERATION_STRIPES;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        final CacheStats stats = cache.stats();
+        final List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>(METRIC_PREFIX + "size", cache.estimatedSize()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "hit", stats.hitCount()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "miss", stats.missCount()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "eviction", stats.evictionCount()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "hit.ratio", stats.hitRate()));
+        return Collections.unmodifiableList(metrics);
+    }
+}
@@ -0,0 +1,56 @@
+package gov.samhsa.c2s.pep.infrastructure.cache;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.boot.actuate.endpoint.mvc.AbstractMvcEndpoint;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint to inspect the {@link DecisionCache} and evict cached decisions, for example after a patient's
+ * consent has changed.
+ */
+public class DecisionCacheMvcEndpoint extends AbstractMvcEndpoint {
+
+    private final DecisionCache decisionCache;
+
+    public DecisionCacheMvcEndpoint(DecisionCache decisionCache) {
+        super("/decisionCache", true);
+        this.decisionCache = decisionCache;
+    }
+
+    @RequestMapping(method = RequestMethod.GET)
+    @ResponseBody
+    public Map<String, Object> stats() {
+        final CacheStats stats = decisionCache.stats();
+        final Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", decisionCache.size());
+        result.put("hit", stats.hitCount());
+        result.put("miss", stats.missCount());
+        result.put("eviction", stats.evictionCount());
+        result.put("hitRatio", stats.hitRate());
+        return result;
+    }
+
+    @RequestMapping(value = "/patients/{patientId:.+}", method = RequestMethod.DELETE)
+    @ResponseBody
+    public Map<String, Object> evictByPatientId(@PathVariable String patientId) {
+        final Map<String, Object> result = new LinkedHashMap<>();
+        result.put("patientId", patientId);
+        result.put("evicted", decisionCache.evictByPatientId(patientId));
+        return result;
+    }
+
+    @RequestMapping(method = RequestMethod.DELETE)
+    @ResponseBody
+    public Map<String, Object> evictAll() {
+        decisionCache.evictAll();
+        final Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", decisionCache.size());
+        return result;
+    }
+}
@@ -0,0 +1,28 @@
+package gov.samhsa.c2s.pep.infrastructure.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import javax.validation.constraints.Min;
+
+@Data
+@ConfigurationProperties(prefix = "c2s.pep.decision-cache")
+public class DecisionCacheProperties {
+
+    /**
+     * Caches context-handler policy decisions when enabled
+     */
+    private boolean enabled = false;
+
+    /**
+     * Time in seconds a cached decision is used before the context-handler is called again
+     */
+    @Min(1)
+    private long timeToLiveInSeconds = 30;
+
+    /**
+     * Maximum number of cached decisions, least recently used decisions are evicted first
+     */
+    @Min(1)
+    private long maximumSize = 10000;
+}
@@ -0,0 +1,88 @@
+package gov.samhsa.c2s.pep.infrastructure.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import gov.samhsa.c2s.pep.infrastructure.dto.DSSResponse;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache of DSS segmentation results bounded by the total size of the cached documents rather than the number of
+ * entries, since documents vary from a few kilobytes to tens of megabytes.
+ */
+public class SegmentationCache implements PublicMetrics {
+
+    private static final String METRIC_PREFIX = "pep.segmentation-cache.";
+
+    /**
+     * Approximate fixed cost of an entry in addition to the document bytes
+     */
+    private static final int ENTRY_OVERHEAD_IN_BYTES = 512;
+
+    private final Cache<SegmentationCacheKey, DSSResponse> cache;
+
+    public SegmentationCache(SegmentationCacheProperties segmentationCacheProperties) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(segmentationCacheProperties.getTimeToLiveInSeconds(), TimeUnit.SECONDS)
+                .maximumWeight(segmentationCacheProperties.getMaximumSizeInBytes())
+                .weigher((SegmentationCacheKey key, DSSResponse dssResponse) -> weigh(dssResponse))
+                .recordStats()
+                .build();
+    }
+
+    public Optional<DSSResponse> get(SegmentationCacheKey key) {
+        return Optional.ofNullable(cache.getIfPresent(key));
+    }
+
+    /**
+     * Retains the detached key, which holds the document digest instead of the document
+     */
+    public void put(SegmentationCacheKey key, DSSResponse dssResponse) {
+        cache.put(key.detach(), dssResponse);
+    }
+
+    /**
+     * @return the total size of the cached entries in bytes
+     */
+    public long sizeInBytes() {
+        return cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        final CacheStats stats = cache.stats();
+        final List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>(METRIC_PREFIX + "size", cache.estimatedSize()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "bytes", sizeInBytes()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "hit", stats.hitCount()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "miss", stats.missCount()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "eviction", stats.evictionCount()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "hit.ratio", stats.hitRate()));
+        return Collections.unmodifiableList(metrics);
+    }
+
+    private static int weigh(DSSResponse dssResponse) {
+        final long size = ENTRY_OVERHEAD_IN_BYTES
+                + length(dssResponse.getSegmentedDocument())
+                + length(dssResponse.getTryPolicyDocument());
+        return (int) Math.min(Integer.MAX_VALUE, size);
+    }
+
+    private static long length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+}
@@ -0,0 +1,163 @@
+package gov.samhsa.c2s.pep.infrastructure.cache;
+
+import gov.samhsa.c2s.pep.infrastructure.dto.DSSRequest;
+import gov.samhsa.c2s.pep.infrastructure.dto.SubjectPurposeOfUse;
+import gov.samhsa.c2s.pep.infrastructure.dto.XacmlResult;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Content address of a segmentation result: the document together with everything else that determines the segmented
+ * document. The hash code only covers the document length and a sample of its bytes, the whole document is compared,
+ * or digested for keys retained by the cache, only when two keys are otherwise equal. Keys of documents that are
+ * neither in flight nor cached therefore never cost a full pass over the document.
+ */
+public final class SegmentationCacheKey {
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private static final int SAMPLE_COUNT = 32;
+
+    private static final int SAMPLE_SIZE = 32;
+
+    /**
+     * The document, null once the key is detached
+     */
+    private final byte[] document;
+
+    private final int documentLength;
+
+    private final int documentSampleHash;
+
+    private final String documentEncoding;
+
+    private final SubjectPurposeOfUse purposeOfUse;
+
+    private final List<String> pdpObligations;
+
+    private volatile String documentDigest;
+
+    private SegmentationCacheKey(byte[] document, int documentLength, int documentSampleHash, String documentDigest,
+                                 String documentEncoding, SubjectPurposeOfUse purposeOfUse, List<String> pdpObligations) {
+        this.document = document;
+        this.documentLength = documentLength;
+        this.documentSampleHash = documentSampleHash;
+        this.documentDigest = documentDigest;
+        this.documentEncoding = documentEncoding;
+        this.purposeOfUse = purposeOfUse;
+        this.pdpObligations = pdpObligations;
+    }
+
+    public static SegmentationCacheKey from(DSSRequest dssRequest) {
+        final XacmlResult xacmlResult = dssRequest.getXacmlResult();
+        final List<String> sortedObligations = new ArrayList<>(xacmlResult.getPdpObligations());
+        Collections.sort(sortedObligations);
+        final byte[] document = dssRequest.getDocument();
+        return new SegmentationCacheKey(
+                document,
+                document.length,
+                sampleHash(document),
+                null,
+                dssRequest.getDocumentEncoding(),
+                xacmlResult.getSubjectPurposeOfUse(),
+                Collections.unmodifiableList(sortedObligations));
+    }
+
+    /**
+     * @return an equal key holding the digest of the document instead of the document, to be retained by a cache
+     */
+    public SegmentationCacheKey detach() {
+        return document == null ? this : new SegmentationCacheKey(null, documentLength, documentSampleHash, getDocumentDigest(),
+                documentEncoding, purposeOfUse, pdpObligations);
+    }
+
+    public String getDocumentDigest() {
+        String digest = documentDigest;
+        if (digest == null) {
+            digest = digest(document);
+            documentDigest = digest;
+        }
+        return digest;
+    }
+
+    public String getDocumentEncoding() {
+        return documentEncoding;
+    }
+
+    public SubjectPurposeOfUse getPurposeOfUse() {
+        return purposeOfUse;
+    }
+
+    public List<String> getPdpObligations() {
+        return pdpObligations;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SegmentationCacheKey)) {
+            return false;
+        }
+        final SegmentationCacheKey other = (SegmentationCacheKey) o;
+        return documentLength == other.documentLength &&
+                documentSampleHash == other.documentSampleHash &&
+                Objects.equals(documentEncoding, other.documentEncoding) &&
+                purposeOfUse == other.purposeOfUse &&
+                pdpObligations.equals(other.pdpObligations) &&
+                hasEqualDocument(other);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(documentLength, documentSampleHash, documentEncoding, purposeOfUse, pdpObligations);
+    }
+
+    @Override
+    public String toString() {
+        return "SegmentationCacheKey(documentLength=" + documentLength + ", documentSampleHash=" + documentSampleHash +
+                ", documentEncoding=" + documentEncoding + ", purposeOfUse=" + purposeOfUse +
+                ", pdpObligations=" + pdpObligations + ")";
+    }
+
+    private boolean hasEqualDocument(SegmentationCacheKey other) {
+        if (document != null && other.document != null) {
+            return Arrays.equals(document, other.document);
+        }
+        return getDocumentDigest().equals(other.getDocumentDigest());
+    }
+
+    /**
+     * Hashes the length and evenly spaced samples of the document, the whole document if it is smaller than the samples
+     */
+    private static int sampleHash(byte[] document) {
+        if (document.length <= SAMPLE_COUNT * SAMPLE_SIZE) {
+            return Arrays.hashCode(document);
+        }
+        final int stride = (document.length - SAMPLE_SIZE) / (SAMPLE_COUNT - 1);
+        int hash = document.length;
+        for (int sample = 0; sample < SAMPLE_COUNT; sample++) {
+            final int offset = sample * stride;
+            for (int i = offset; i < offset + SAMPLE_SIZE; i++) {
+                hash = 31 * hash + document[i];
+            }
+        }
+        return hash;
+    }
+
+    private static String digest(byte[] document) {
+        try {
+            return Base64.getEncoder().encodeToString(MessageDigest.getInstance(DIGEST_ALGORITHM).digest(document));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Unable to compute document digest", e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package gov.samhsa.c2s.pep.infrastructure.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import javax.validation.constraints.Min;
+
+@Data
+@ConfigurationProperties(prefix = "c2s.pep.segmentation-cache")
+public class SegmentationCacheProperties {
+
+    /**
+     * Caches DSS segmentation results when enabled
+     */
+    private boolean enabled = false;
+
+    /**
+     * Time in seconds a cached segmentation result is used before the DSS is called again
+     */
+    @Min(1)
+    private long timeToLiveInSeconds = 300;
+
+    /**
+     * Memory budget of the cache in bytes, measured by the size of the cached documents
+     */
+    @Min(1)
+    private long maximumSizeInBytes = 64L * 1024 * 1024;
+}
@@ -0,0 +1,25 @@
+package gov.samhsa.c2s.pep.infrastructure.coalescing;
+
+import gov.samhsa.c2s.pep.infrastructure.ContextHandlerService;
+import gov.samhsa.c2s.pep.infrastructure.dto.XacmlRequestDto;
+import gov.samhsa.c2s.pep.infrastructure.dto.XacmlResponseDto;
+
+/**
+ * Shares one context-handler call between concurrent callers enforcing policy for an equal {@link XacmlRequestDto}.
+ */
+public class CoalescingContextHandlerService implements ContextHandlerService {
+
+    private final ContextHandlerService delegate;
+
+    private final SingleFlight<XacmlRequestDto, XacmlResponseDto> singleFlight;
+
+    public CoalescingContextHandlerService(ContextHandlerService delegate, SingleFlight<XacmlRequestDto, XacmlResponseDto> singleFlight) {
+        this.delegate = delegate;
+        this.singleFlight = singleFlight;
+    }
+
+    @Override
+    public XacmlResponseDto enforcePolicy(XacmlRequestDto xacmlRequest) {
+        return singleFlight.execute(xacmlRequest, () -> delegate.enforcePolicy(xacmlRequest));
+    }
+}
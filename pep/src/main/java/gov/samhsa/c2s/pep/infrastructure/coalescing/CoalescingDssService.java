@@ -0,0 +1,28 @@
+package gov.samhsa.c2s.pep.infrastructure.coalescing;
+
+import gov.samhsa.c2s.pep.infrastructure.DssService;
+import gov.samhsa.c2s.pep.infrastructure.cache.SegmentationCacheKey;
+import gov.samhsa.c2s.pep.infrastructure.dto.DSSRequest;
+import gov.samhsa.c2s.pep.infrastructure.dto.DSSResponse;
+
+/**
+ * Shares one DSS call between concurrent callers segmenting the same document under the same obligations. Requests
+ * are keyed by {@link SegmentationCacheKey} because every {@link DSSRequest} carries a unique message id, the key
+ * hashes a sample of the document and compares whole documents only with the keys of in-flight calls it matches.
+ */
+public class CoalescingDssService implements DssService {
+
+    private final DssService delegate;
+
+    private final SingleFlight<SegmentationCacheKey, DSSResponse> singleFlight;
+
+    public CoalescingDssService(DssService delegate, SingleFlight<SegmentationCacheKey, DSSResponse> singleFlight) {
+        this.delegate = delegate;
+        this.singleFlight = singleFlight;
+    }
+
+    @Override
+    public DSSResponse segmentDocument(DSSRequest request) {
+        return singleFlight.execute(SegmentationCacheKey.from(request), () -> delegate.segmentDocument(request));
+    }
+}
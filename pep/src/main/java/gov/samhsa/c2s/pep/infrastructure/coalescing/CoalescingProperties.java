@@ -0,0 +1,35 @@
+package gov.samhsa.c2s.pep.infrastructure.coalescing;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import javax.validation.constraints.Min;
+
+@Data
+@ConfigurationProperties(prefix = "c2s.pep.coalescing")
+public class CoalescingProperties {
+
+    /**
+     * Shares a single context-handler call between concurrent identical policy enforcement requests when enabled
+     */
+    private boolean contextHandlerEnabled = true;
+
+    /**
+     * Shares a single DSS call between concurrent segmentation requests of the same document when enabled
+     */
+    private boolean dssEnabled = true;
+
+    /**
+     * Maximum time a request waits for a shared context-handler call before calling context-handler itself, slightly
+     * above the hystrix timeout of context-handler
+     */
+    @Min(1)
+    private long contextHandlerWaitTimeoutInMillis = 9000;
+
+    /**
+     * Maximum time a request waits for a shared DSS call before calling DSS itself, slightly above the hystrix timeout
+     * of DSS
+     */
+    @Min(1)
+    private long dssWaitTimeoutInMillis = 56000;
+}
@@ -0,0 +1,114 @@
+package gov.samhsa.c2s.pep.infrastructure.coalescing;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls with an equal key into a single call. The first caller executes the call while the
+ * callers arriving before it completes wait for and share its result or exception. Nothing is retained once the call
+ * has completed, so results are never stale. Waiting callers give up after the wait timeout and execute the call
+ * themselves, so a hung call cannot hold them beyond their own downstream timeout.
+ *
+ * @param <K> the type of the call key
+ * @param <V> the type of the call result
+ */
+public class SingleFlight<K, V> implements PublicMetrics {
+
+    private static final String METRIC_PREFIX = "pep.single-flight.";
+
+    private final String name;
+
+    private final long waitTimeoutInMillis;
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlightCalls = new ConcurrentHashMap<>();
+
+    private final AtomicLong executedCalls = new AtomicLong();
+
+    private final AtomicLong collapsedCalls = new AtomicLong();
+
+    private final AtomicLong timedOutWaits = new AtomicLong();
+
+    public SingleFlight(String name, long waitTimeoutInMillis) {
+        this.name = name;
+        this.waitTimeoutInMillis = waitTimeoutInMillis;
+    }
+
+    public V execute(K key, Supplier<V> call) {
+        final CompletableFuture<V> ownCall = new CompletableFuture<>();
+        final CompletableFuture<V> inFlightCall = inFlightCalls.putIfAbsent(key, ownCall);
+        if (inFlightCall != null) {
+            collapsedCalls.incrementAndGet();
+            try {
+                return await(inFlightCall, waitTimeoutInMillis);
+            } catch (TimeoutException e) {
+                timedOutWaits.incrementAndGet();
+                return call.get();
+            }
+        }
+        executedCalls.incrementAndGet();
+        try {
+            final V result = call.get();
+            ownCall.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            ownCall.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightCalls.remove(key, ownCall);
+        }
+    }
+
+    public long getExecutedCalls() {
+        return executedCalls.get();
+    }
+
+    public long getCollapsedCalls() {
+        return collapsedCalls.get();
+    }
+
+    public long getTimedOutWaits() {
+        return timedOutWaits.get();
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        final List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>(METRIC_PREFIX + name + ".executed", executedCalls.get()));
+        metrics.add(new Metric<>(METRIC_PREFIX + name + ".collapsed", collapsedCalls.get()));
+        metrics.add(new Metric<>(METRIC_PREFIX + name + ".timed-out-waits", timedOutWaits.get()));
+        metrics.add(new Metric<>(METRIC_PREFIX + name + ".in-flight", inFlightCalls.size()));
+        return Collections.unmodifiableList(metrics);
+    }
+
+    private static <V> V await(CompletableFuture<V> inFlightCall, long waitTimeoutInMillis) throws TimeoutException {
+        try {
+            return inFlightCall.get(waitTimeoutInMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new CompletionException(cause);
+        }
+    }
+}
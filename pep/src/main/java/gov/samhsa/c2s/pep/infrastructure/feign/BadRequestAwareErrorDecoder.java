@@ -0,0 +1,37 @@
+package gov.samhsa.c2s.pep.infrastructure.feign;
+
+import com.netflix.hystrix.exception.HystrixBadRequestException;
+import feign.Response;
+import feign.codec.ErrorDecoder;
+
+import java.io.IOException;
+
+/**
+ * Wraps client errors in {@link HystrixBadRequestException}, so that responses like 404 - consent not found and
+ * 400 - invalid document are passed to the caller without counting as failures of the downstream service and
+ * tripping its circuit breaker. The original {@link feign.FeignException} is kept as the cause.
+ */
+public class BadRequestAwareErrorDecoder implements ErrorDecoder {
+
+    private final ErrorDecoder delegate = new ErrorDecoder.Default();
+
+    @Override
+    public Exception decode(String methodKey, Response response) {
+        final Exception exception = delegate.decode(methodKey, decompressQuietly(response));
+        if (response.status() >= 400 && response.status() < 500) {
+            return new HystrixBadRequestException(exception.getMessage(), exception);
+        }
+        return exception;
+    }
+
+    /**
+     * The error message contains the response body, which is unreadable if it is still compressed
+     */
+    private static Response decompressQuietly(Response response) {
+        try {
+            return DecompressingDecoder.decompress(response);
+        } catch (IOException e) {
+            return response;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package gov.samhsa.c2s.pep.infrastructure.feign;
+
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+import org.springframework.http.HttpHeaders;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses feign request bodies above the size threshold with gzip and advertises the response encodings that
+ * {@link DecompressingDecoder} accepts. Small bodies, like policy enforcement requests, are not worth the CPU cost and
+ * are sent as they are.
+ */
+public class CompressingRequestInterceptor implements RequestInterceptor {
+
+    static final String GZIP = "gzip";
+    static final String DEFLATE = "deflate";
+
+    private final FeignCompressionProperties feignCompressionProperties;
+
+    public CompressingRequestInterceptor(FeignCompressionProperties feignCompressionProperties) {
+        this.feignCompressionProperties = feignCompressionProperties;
+    }
+
+    @Override
+    public void apply(RequestTemplate template) {
+        if (feignCompressionProperties.isResponseEnabled()) {
+            template.header(HttpHeaders.ACCEPT_ENCODING, GZIP, DEFLATE);
+        }
+        final byte[] body = template.body();
+        if (feignCompressionProperties.isRequestEnabled() && body != null && body.length >= feignCompressionProperties.getMinRequestSizeInBytes()) {
+            template.body(gzip(body), null);
+            template.header(HttpHeaders.CONTENT_ENCODING, GZIP);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        // Segmented CDA documents typically compress to less than a tenth of their size
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(512, body.length / 8));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+}
@@ -0,0 +1,68 @@
+package gov.samhsa.c2s.pep.infrastructure.feign;
+
+import feign.FeignException;
+import feign.Response;
+import feign.codec.Decoder;
+import org.springframework.http.HttpHeaders;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Decompresses gzip or deflate encoded feign responses while they are decoded by the delegate decoder. The feign
+ * HTTP client does not decompress responses on its own.
+ */
+public class DecompressingDecoder implements Decoder {
+
+    private final Decoder delegate;
+
+    public DecompressingDecoder(Decoder delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Object decode(Response response, Type type) throws IOException, FeignException {
+        return delegate.decode(decompress(response), type);
+    }
+
+    /**
+     * @return a response with the decompressed body and without the content encoding and length headers, or the given
+     * response if its body is not compressed
+     */
+    public static Response decompress(Response response) throws IOException {
+        final Optional<String> contentEncoding = findHeader(response, HttpHeaders.CONTENT_ENCODING);
+        if (!contentEncoding.isPresent() || response.body() == null) {
+            return response;
+        }
+        final InputStream body;
+        if (CompressingRequestInterceptor.GZIP.equalsIgnoreCase(contentEncoding.get())) {
+            body = new GZIPInputStream(response.body().asInputStream());
+        } else if (CompressingRequestInterceptor.DEFLATE.equalsIgnoreCase(contentEncoding.get())) {
+            body = new InflaterInputStream(response.body().asInputStream());
+        } else {
+            return response;
+        }
+        final Map<String, Collection<String>> headers = new LinkedHashMap<>();
+        response.headers().forEach((name, values) -> {
+            if (!HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) && !HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                headers.put(name, values);
+            }
+        });
+        return Response.create(response.status(), response.reason(), headers, body, null);
+    }
+
+    private static Optional<String> findHeader(Response response, String headerName) {
+        return response.headers().entrySet().stream()
+                .filter(header -> headerName.equalsIgnoreCase(header.getKey()))
+                .flatMap(header -> header.getValue().stream())
+                .map(String::trim)
+                .findFirst();
+    }
+}
@@ -0,0 +1,27 @@
+package gov.samhsa.c2s.pep.infrastructure.feign;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import javax.validation.constraints.Min;
+
+@Data
+@ConfigurationProperties(prefix = "c2s.pep.feign-compression")
+public class FeignCompressionProperties {
+
+    /**
+     * Compresses request bodies sent to context-handler and DSS with gzip, the services must accept gzip encoded requests
+     */
+    private boolean requestEnabled = false;
+
+    /**
+     * Minimum size in bytes of a request body to be compressed, smaller bodies are sent as they are
+     */
+    @Min(0)
+    private int minRequestSizeInBytes = 2048;
+
+    /**
+     * Asks context-handler and DSS for gzip or deflate encoded responses, which are decompressed before decoding
+     */
+    private boolean responseEnabled = true;
+}
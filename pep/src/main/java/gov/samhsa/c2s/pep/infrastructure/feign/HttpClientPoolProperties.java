@@ -0,0 +1,71 @@
+package gov.samhsa.c2s.pep.infrastructure.feign;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "c2s.pep.http-client-pool")
+public class HttpClientPoolProperties {
+
+    /**
+     * Pool settings of the services without their own settings
+     */
+    @Valid
+    private Pool defaults = new Pool();
+
+    /**
+     * Pool settings by service name, which is the feign client name. Settings missing for a service take the built-in
+     * defaults, not those of {@link #defaults}
+     */
+    @Valid
+    private Map<String, Pool> services = new HashMap<>();
+
+    public Pool getPool(String serviceName) {
+        return services.getOrDefault(serviceName, defaults);
+    }
+
+    @Data
+    public static class Pool {
+
+        /**
+         * Maximum number of connections to all instances of the service
+         */
+        @Min(1)
+        private int maxConnections = 20;
+
+        /**
+         * Maximum number of connections to a single instance of the service
+         */
+        @Min(1)
+        private int maxConnectionsPerInstance = 20;
+
+        /**
+         * Time in seconds a connection is kept alive when the service does not send a Keep-Alive timeout
+         */
+        @Min(1)
+        private int keepAliveInSeconds = 30;
+
+        /**
+         * Time in seconds after which idle connections are closed by the background evictor
+         */
+        @Min(1)
+        private int idleTimeoutInSeconds = 30;
+
+        /**
+         * Maximum lifetime in seconds of a connection, so that connections move to new instances of the service
+         */
+        @Min(1)
+        private int timeToLiveInSeconds = 300;
+
+        /**
+         * Idle time in milliseconds after which a pooled connection is checked before it is reused
+         */
+        @Min(0)
+        private int validateAfterInactivityInMillis = 2000;
+    }
+}
@@ -0,0 +1,26 @@
+package gov.samhsa.c2s.pep.infrastructure.feign;
+
+import feign.Client;
+import feign.httpclient.ApacheHttpClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.netflix.feign.ribbon.CachingSpringLoadBalancerFactory;
+import org.springframework.cloud.netflix.feign.ribbon.LoadBalancerFeignClient;
+import org.springframework.cloud.netflix.ribbon.SpringClientFactory;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Default configuration of the feign clients, which sends the requests of each client through the pooled HTTP client
+ * of its service. It is applied in the context of each feign client and is not annotated with
+ * {@code @Configuration} so that component scanning does not pick it up in the application context.
+ */
+public class PooledFeignClientConfiguration {
+
+    @Bean
+    public Client feignClient(CachingSpringLoadBalancerFactory cachingSpringLoadBalancerFactory,
+                              SpringClientFactory springClientFactory,
+                              PooledHttpClients pooledHttpClients,
+                              @Value("${feign.client.name}") String clientName) {
+        return new LoadBalancerFeignClient(new ApacheHttpClient(pooledHttpClients.get(clientName)),
+                cachingSpringLoadBalancerFactory, springClientFactory);
+    }
+}
@@ -0,0 +1,116 @@
+package gov.samhsa.c2s.pep.infrastructure.feign;
+
+import gov.samhsa.c2s.common.log.Logger;
+import gov.samhsa.c2s.common.log.LoggerFactory;
+import org.apache.http.client.HttpClient;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps one pooled keep-alive HTTP client per downstream service, so that the connections to a slow service like DSS
+ * cannot exhaust the connections to the others. Each client closes expired and idle connections in the background.
+ * The pool usage of each service is published as {@code pep.http-client-pool.<service>.leased|available|pending|max}.
+ * <p>
+ * Connect and read timeouts are not set here, they are applied per request from the ribbon settings of the service.
+ */
+public class PooledHttpClients implements PublicMetrics, Closeable {
+
+    private static final String METRIC_PREFIX = "pep.http-client-pool.";
+
+    private final Logger logger = LoggerFactory.getLogger(PooledHttpClients.class);
+
+    private final HttpClientPoolProperties httpClientPoolProperties;
+
+    private final ConcurrentMap<String, PooledHttpClient> clients = new ConcurrentHashMap<>();
+
+    public PooledHttpClients(HttpClientPoolProperties httpClientPoolProperties) {
+        this.httpClientPoolProperties = httpClientPoolProperties;
+    }
+
+    /**
+     * @return the HTTP client of the service, created with the pool settings of the service on first use
+     */
+    public HttpClient get(String serviceName) {
+        return clients.computeIfAbsent(serviceName, this::create).httpClient;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        final List<Metric<?>> metrics = new ArrayList<>();
+        clients.forEach((serviceName, client) -> {
+            final PoolStats stats = client.connectionManager.getTotalStats();
+            metrics.add(new Metric<>(METRIC_PREFIX + serviceName + ".leased", stats.getLeased()));
+            metrics.add(new Metric<>(METRIC_PREFIX + serviceName + ".available", stats.getAvailable()));
+            metrics.add(new Metric<>(METRIC_PREFIX + serviceName + ".pending", stats.getPending()));
+            metrics.add(new Metric<>(METRIC_PREFIX + serviceName + ".max", stats.getMax()));
+        });
+        return metrics;
+    }
+
+    @Override
+    public void close() {
+        for (Map.Entry<String, PooledHttpClient> client : clients.entrySet()) {
+            try {
+                client.getValue().httpClient.close();
+            } catch (IOException e) {
+                logger.error("Failed to close the HTTP client of " + client.getKey(), e);
+            }
+        }
+        clients.clear();
+    }
+
+    private PooledHttpClient create(String serviceName) {
+        final HttpClientPoolProperties.Pool pool = httpClientPoolProperties.getPool(serviceName);
+        logger.info("Creating HTTP connection pool for " + serviceName + " with " + pool.getMaxConnections() + " connections");
+        final PoolingHttpClientConnectionManager connectionManager =
+                new PoolingHttpClientConnectionManager(pool.getTimeToLiveInSeconds(), TimeUnit.SECONDS);
+        connectionManager.setMaxTotal(pool.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(pool.getMaxConnectionsPerInstance());
+        connectionManager.setValidateAfterInactivity(pool.getValidateAfterInactivityInMillis());
+        final CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(keepAliveStrategy(pool.getKeepAliveInSeconds()))
+                .evictExpiredConnections()
+                .evictIdleConnections(pool.getIdleTimeoutInSeconds(), TimeUnit.SECONDS)
+                // Response decompression is left to DecompressingDecoder and c2s.pep.feign-compression
+                .disableContentCompression()
+                .disableCookieManagement()
+                .build();
+        return new PooledHttpClient(httpClient, connectionManager);
+    }
+
+    private static ConnectionKeepAliveStrategy keepAliveStrategy(int defaultKeepAliveInSeconds) {
+        return (response, context) -> {
+            final long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return keepAlive > 0 ? keepAlive : TimeUnit.SECONDS.toMillis(defaultKeepAliveInSeconds);
+        };
+    }
+
+    private static class PooledHttpClient {
+
+        private final CloseableHttpClient httpClient;
+
+        private final PoolingHttpClientConnectionManager connectionManager;
+
+        private PooledHttpClient(CloseableHttpClient httpClient, PoolingHttpClientConnectionManager connectionManager) {
+            this.httpClient = httpClient;
+            this.connectionManager = connectionManager;
+        }
+    }
+}
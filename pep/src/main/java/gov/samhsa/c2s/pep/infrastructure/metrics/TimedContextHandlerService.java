@@ -0,0 +1,35 @@
+package gov.samhsa.c2s.pep.infrastructure.metrics;
+
+import gov.samhsa.c2s.pep.infrastructure.ContextHandlerService;
+import gov.samhsa.c2s.pep.infrastructure.dto.XacmlRequestDto;
+import gov.samhsa.c2s.pep.infrastructure.dto.XacmlResponseDto;
+import gov.samhsa.c2s.pep.service.AccessMetrics;
+
+/**
+ * Records the PDP stage around the context-handler feign client. It decorates the client itself, inside the decision
+ * cache and the coalescing, so that cache hits and joined calls are not recorded as PDP calls.
+ */
+public class TimedContextHandlerService implements ContextHandlerService {
+
+    private final ContextHandlerService delegate;
+
+    private final AccessMetrics accessMetrics;
+
+    public TimedContextHandlerService(ContextHandlerService delegate, AccessMetrics accessMetrics) {
+        this.delegate = delegate;
+        this.accessMetrics = accessMetrics;
+    }
+
+    @Override
+    public XacmlResponseDto enforcePolicy(XacmlRequestDto xacmlRequest) {
+        final long start = System.nanoTime();
+        String decision = AccessMetrics.DECISION_ERROR;
+        try {
+            final XacmlResponseDto xacmlResponse = delegate.enforcePolicy(xacmlRequest);
+            decision = xacmlResponse.getPdpDecision();
+            return xacmlResponse;
+        } finally {
+            accessMetrics.recordStage(AccessMetrics.Stage.PDP, xacmlRequest.getPurposeOfUse(), decision, 0, System.nanoTime() - start);
+        }
+    }
+}
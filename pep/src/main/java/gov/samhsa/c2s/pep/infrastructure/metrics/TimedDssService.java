@@ -0,0 +1,36 @@
+package gov.samhsa.c2s.pep.infrastructure.metrics;
+
+import gov.samhsa.c2s.pep.infrastructure.DssService;
+import gov.samhsa.c2s.pep.infrastructure.dto.DSSRequest;
+import gov.samhsa.c2s.pep.infrastructure.dto.DSSResponse;
+import gov.samhsa.c2s.pep.service.AccessMetrics;
+
+/**
+ * Records the DSS stage around the dss feign client. It decorates the client itself, inside the segmentation cache
+ * and the coalescing, so that cache hits and joined calls are not recorded as DSS calls.
+ */
+public class TimedDssService implements DssService {
+
+    private final DssService delegate;
+
+    private final AccessMetrics accessMetrics;
+
+    public TimedDssService(DssService delegate, AccessMetrics accessMetrics) {
+        this.delegate = delegate;
+        this.accessMetrics = accessMetrics;
+    }
+
+    @Override
+    public DSSResponse segmentDocument(DSSRequest dssRequest) {
+        final long start = System.nanoTime();
+        String decision = AccessMetrics.DECISION_ERROR;
+        try {
+            final DSSResponse dssResponse = delegate.segmentDocument(dssRequest);
+            decision = dssRequest.getXacmlResult().getPdpDecision();
+            return dssResponse;
+        } finally {
+            accessMetrics.recordStage(AccessMetrics.Stage.DSS, dssRequest.getXacmlResult().getSubjectPurposeOfUse(), decision,
+                    dssRequest.getDocument().length, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package gov.samhsa.c2s.pep.infrastructure.npi;
+
+import gov.samhsa.c2s.common.log.Logger;
+import gov.samhsa.c2s.common.log.LoggerFactory;
+import gov.samhsa.c2s.pep.infrastructure.ProviderNpiLookupService;
+import lombok.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Provider directory loaded from a local file of {@code username,npi} lines, for directories of up to millions of
+ * provider users. Blank lines and lines starting with {@code #} are ignored, lines without a 10 digit NPI are skipped.
+ * <p>
+ * The entries are held in a compact {@link ProviderNpiIndex} with constant time lookups by username and by NPI. When
+ * the file changes, a new index is built next to the current one and swapped in atomically, so lookups never wait for
+ * a reload and always see either the old or the new directory. A file that cannot be read keeps the current index.
+ */
+public class ProviderNpiDirectory implements ProviderNpiLookupService, PublicMetrics, Closeable {
+
+    private static final String METRIC_PREFIX = "pep.provider-directory.";
+    private static final char COMMENT = '#';
+    private static final char SEPARATOR = ',';
+
+    private final Logger logger = LoggerFactory.getLogger(ProviderNpiDirectory.class);
+
+    private final Path file;
+
+    private final int expectedSize;
+
+    private final ScheduledExecutorService reloadScheduler;
+
+    private final AtomicLong reloads = new AtomicLong();
+
+    private final AtomicLong reloadFailures = new AtomicLong();
+
+    private volatile ProviderNpiIndex index = ProviderNpiIndex.EMPTY;
+
+    private volatile long skippedLines;
+
+    private FileVersion loadedVersion;
+
+    /**
+     * Loads the file, failing if it cannot be read, and checks it for changes at the reload interval.
+     */
+    public ProviderNpiDirectory(Path file, int expectedSize, int reloadIntervalInSeconds) {
+        this.file = file;
+        this.expectedSize = expectedSize;
+        try {
+            load();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to load the provider directory from " + file, e);
+        }
+        if (reloadIntervalInSeconds > 0) {
+            reloadScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "provider-directory-reload");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reloadScheduler.scheduleWithFixedDelay(this::reloadIfModified, reloadIntervalInSeconds, reloadIntervalInSeconds, TimeUnit.SECONDS);
+        } else {
+            reloadScheduler = null;
+        }
+    }
+
+    @Override
+    public Map<String, String> getUsers() {
+        return index.asMap();
+    }
+
+    @Override
+    public Optional<String> findNpi(String username) {
+        return index.findNpi(username);
+    }
+
+    @Override
+    public Optional<String> findUsername(String npi) {
+        return index.findUsername(npi);
+    }
+
+    /**
+     * Reloads the file if its modification time or size changed since it was loaded.
+     */
+    public synchronized void reloadIfModified() {
+        try {
+            if (!FileVersion.of(file).equals(loadedVersion)) {
+                load();
+                reloads.incrementAndGet();
+            }
+        } catch (IOException | RuntimeException e) {
+            reloadFailures.incrementAndGet();
+            logger.error("Unable to reload the provider directory from " + file + ", keeping the current entries", e);
+        }
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        final List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>(METRIC_PREFIX + "entries", index.size()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "skipped-lines", skippedLines));
+        metrics.add(new Metric<>(METRIC_PREFIX + "reloads", reloads.get()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "reload-failures", reloadFailures.get()));
+        return metrics;
+    }
+
+    @Override
+    public void close() {
+        if (reloadScheduler != null) {
+            reloadScheduler.shutdownNow();
+        }
+    }
+
+    private synchronized void load() throws IOException {
+        final long start = System.nanoTime();
+        // Read the version first, a change while reading is then picked up by the next check
+        final FileVersion version = FileVersion.of(file);
+        final ProviderNpiIndex.Builder builder = new ProviderNpiIndex.Builder(Math.max(expectedSize, index.size()));
+        long skipped = 0;
+        long duplicates = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.charAt(0) == COMMENT) {
+                    continue;
+                }
+                final int separator = line.lastIndexOf(SEPARATOR);
+                final long npi = separator > 0 ? ProviderNpiIndex.parseNpi(line.substring(separator + 1).trim()) : -1;
+                if (npi < 0) {
+                    skipped++;
+                } else if (!builder.add(line.substring(0, separator).trim(), npi)) {
+                    duplicates++;
+                }
+            }
+        }
+        index = builder.build();
+        skippedLines = skipped;
+        loadedVersion = version;
+        logger.info("Loaded " + index.size() + " provider users from " + file + " in " +
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms, skipped " + skipped +
+                " invalid lines and " + duplicates + " duplicate usernames");
+    }
+
+    @Value
+    private static class FileVersion {
+
+        long lastModifiedInMillis;
+
+        long size;
+
+        private static FileVersion of(Path file) throws IOException {
+            final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return new FileVersion(attributes.lastModifiedTime().toMillis(), attributes.size());
+        }
+    }
+}
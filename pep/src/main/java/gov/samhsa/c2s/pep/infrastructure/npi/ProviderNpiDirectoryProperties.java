@@ -0,0 +1,29 @@
+package gov.samhsa.c2s.pep.infrastructure.npi;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import javax.validation.constraints.Min;
+
+@Data
+@ConfigurationProperties(prefix = "c2s.pep.provider-directory")
+public class ProviderNpiDirectoryProperties {
+
+    /**
+     * Path of the provider directory file with one {@code username,npi} line per provider user. When set, the
+     * directory replaces the c2s.pep.providers mappings
+     */
+    private String file;
+
+    /**
+     * Interval in seconds at which the file is checked for changes and reloaded, 0 disables reloading
+     */
+    @Min(0)
+    private int reloadIntervalInSeconds = 60;
+
+    /**
+     * Expected number of entries, used to size the index while the file is loaded
+     */
+    @Min(0)
+    private int expectedSize = 100000;
+}
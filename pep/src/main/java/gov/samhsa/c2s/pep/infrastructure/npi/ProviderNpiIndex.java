@@ -0,0 +1,314 @@
+package gov.samhsa.c2s.pep.infrastructure.npi;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Immutable username to NPI index held in a few primitive arrays instead of one object per entry. The usernames are
+ * stored back to back in a single character array and the 10 digit NPIs as longs. Both lookup directions use open
+ * addressing tables of entry numbers, so a lookup costs a hash and a few array reads and does not allocate until the
+ * result is returned. An entry takes about 30 bytes plus two bytes per username character.
+ */
+final class ProviderNpiIndex {
+
+    static final ProviderNpiIndex EMPTY = new Builder(0).build();
+
+    private static final int NPI_LENGTH = 10;
+
+    private final char[] usernames;
+
+    /**
+     * Start of each username in {@link #usernames}, with the end of the last username as extra element
+     */
+    private final int[] usernameOffsets;
+
+    private final int[] usernameHashes;
+
+    private final long[] npis;
+
+    /**
+     * Open addressing tables of entry number + 1, 0 marks an empty slot
+     */
+    private final int[] usernameTable;
+
+    private final int[] npiTable;
+
+    private final int size;
+
+    private ProviderNpiIndex(char[] usernames, int[] usernameOffsets, int[] usernameHashes, long[] npis, int[] usernameTable,
+                             int[] npiTable, int size) {
+        this.usernames = usernames;
+        this.usernameOffsets = usernameOffsets;
+        this.usernameHashes = usernameHashes;
+        this.npis = npis;
+        this.usernameTable = usernameTable;
+        this.npiTable = npiTable;
+        this.size = size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    Optional<String> findNpi(String username) {
+        final int entry = findEntry(username);
+        return entry < 0 ? Optional.empty() : Optional.of(formatNpi(npis[entry]));
+    }
+
+    Optional<String> findUsername(String npi) {
+        final long value = parseNpi(npi);
+        if (value < 0) {
+            return Optional.empty();
+        }
+        final int mask = npiTable.length - 1;
+        for (int slot = spread(Long.hashCode(value)) & mask; npiTable[slot] != 0; slot = (slot + 1) & mask) {
+            final int entry = npiTable[slot] - 1;
+            if (npis[entry] == value) {
+                return Optional.of(username(entry));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @return a read-only map view of the index
+     */
+    Map<String, String> asMap() {
+        return new AbstractMap<String, String>() {
+
+            @Override
+            public String get(Object key) {
+                return key instanceof String ? findNpi((String) key).orElse(null) : null;
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return key instanceof String && findEntry((String) key) >= 0;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public Set<Entry<String, String>> entrySet() {
+                return new AbstractSet<Entry<String, String>>() {
+
+                    @Override
+                    public Iterator<Entry<String, String>> iterator() {
+                        return new Iterator<Entry<String, String>>() {
+
+                            private int next;
+
+                            @Override
+                            public boolean hasNext() {
+                                return next < size;
+                            }
+
+                            @Override
+                            public Entry<String, String> next() {
+                                if (!hasNext()) {
+                                    throw new NoSuchElementException();
+                                }
+                                final int entry = next++;
+                                return new SimpleImmutableEntry<>(username(entry), formatNpi(npis[entry]));
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return size;
+                    }
+                };
+            }
+        };
+    }
+
+    private int findEntry(String username) {
+        if (username == null) {
+            return -1;
+        }
+        final int hash = username.hashCode();
+        final int mask = usernameTable.length - 1;
+        for (int slot = spread(hash) & mask; usernameTable[slot] != 0; slot = (slot + 1) & mask) {
+            final int entry = usernameTable[slot] - 1;
+            if (usernameHashes[entry] == hash && usernameEquals(entry, username)) {
+                return entry;
+            }
+        }
+        return -1;
+    }
+
+    private boolean usernameEquals(int entry, String username) {
+        return usernameEquals(usernames, usernameOffsets, entry, username);
+    }
+
+    private String username(int entry) {
+        return new String(usernames, usernameOffsets[entry], usernameOffsets[entry + 1] - usernameOffsets[entry]);
+    }
+
+    private static boolean usernameEquals(char[] usernames, int[] usernameOffsets, int entry, String username) {
+        final int start = usernameOffsets[entry];
+        if (usernameOffsets[entry + 1] - start != username.length()) {
+            return false;
+        }
+        for (int i = 0; i < username.length(); i++) {
+            if (usernames[start + i] != username.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the NPI as a number, or -1 if it is not a 10 digit NPI
+     */
+    static long parseNpi(String npi) {
+        if (npi == null || npi.length() != NPI_LENGTH) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < NPI_LENGTH; i++) {
+            final char digit = npi.charAt(i);
+            if (digit < '0' || digit > '9') {
+                return -1;
+            }
+            value = value * 10 + (digit - '0');
+        }
+        return value;
+    }
+
+    private static String formatNpi(long npi) {
+        final char[] digits = new char[NPI_LENGTH];
+        for (int i = NPI_LENGTH - 1; i >= 0; i--) {
+            digits[i] = (char) ('0' + npi % 10);
+            npi /= 10;
+        }
+        return new String(digits);
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int tableCapacity(int entries) {
+        // Keeps the load factor at or below 0.5 so that probe sequences stay short
+        return Integer.highestOneBit(Math.max(1, entries) * 2 - 1) << 1;
+    }
+
+    /**
+     * Adds entries in file order, keeping the first entry of a duplicate username.
+     */
+    static final class Builder {
+
+        private char[] usernames;
+
+        private int usernamesLength;
+
+        private int[] usernameOffsets;
+
+        private int[] usernameHashes;
+
+        private long[] npis;
+
+        private int[] usernameTable;
+
+        private int size;
+
+        Builder(int expectedSize) {
+            final int capacity = Math.max(16, expectedSize);
+            this.usernames = new char[capacity * 8];
+            this.usernameOffsets = new int[capacity + 1];
+            this.usernameHashes = new int[capacity];
+            this.npis = new long[capacity];
+            this.usernameTable = new int[tableCapacity(capacity)];
+        }
+
+        /**
+         * @return false if the username was already added, the entry is then ignored
+         */
+        boolean add(String username, long npi) {
+            final int hash = username.hashCode();
+            final int mask = usernameTable.length - 1;
+            int slot = spread(hash) & mask;
+            for (; usernameTable[slot] != 0; slot = (slot + 1) & mask) {
+                final int entry = usernameTable[slot] - 1;
+                if (usernameHashes[entry] == hash && usernameEquals(usernames, usernameOffsets, entry, username)) {
+                    return false;
+                }
+            }
+            ensureCapacity(username.length());
+            username.getChars(0, username.length(), usernames, usernamesLength);
+            usernameOffsets[size] = usernamesLength;
+            usernamesLength += username.length();
+            usernameOffsets[size + 1] = usernamesLength;
+            usernameHashes[size] = hash;
+            npis[size] = npi;
+            size++;
+            if (size * 2 > usernameTable.length) {
+                usernameTable = buildUsernameTable(usernameHashes, size);
+            } else {
+                usernameTable[slot] = size;
+            }
+            return true;
+        }
+
+        ProviderNpiIndex build() {
+            final int[] hashes = Arrays.copyOf(usernameHashes, size);
+            final long[] trimmedNpis = Arrays.copyOf(npis, size);
+            return new ProviderNpiIndex(Arrays.copyOf(usernames, usernamesLength), Arrays.copyOf(usernameOffsets, size + 1),
+                    hashes, trimmedNpis, buildUsernameTable(hashes, size), buildNpiTable(trimmedNpis, size), size);
+        }
+
+        private void ensureCapacity(int usernameLength) {
+            if (size + 1 >= npis.length) {
+                final int capacity = npis.length * 2;
+                usernameOffsets = Arrays.copyOf(usernameOffsets, capacity + 1);
+                usernameHashes = Arrays.copyOf(usernameHashes, capacity);
+                npis = Arrays.copyOf(npis, capacity);
+            }
+            if (usernamesLength + usernameLength > usernames.length) {
+                usernames = Arrays.copyOf(usernames, Math.max(usernames.length * 2, usernamesLength + usernameLength));
+            }
+        }
+
+        private static int[] buildUsernameTable(int[] hashes, int size) {
+            final int[] table = new int[tableCapacity(size)];
+            final int mask = table.length - 1;
+            for (int entry = 0; entry < size; entry++) {
+                int slot = spread(hashes[entry]) & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = entry + 1;
+            }
+            return table;
+        }
+
+        /**
+         * Several users may share an NPI, the reverse lookup returns the first of them
+         */
+        private static int[] buildNpiTable(long[] npis, int size) {
+            final int[] table = new int[tableCapacity(size)];
+            final int mask = table.length - 1;
+            for (int entry = 0; entry < size; entry++) {
+                int slot = spread(Long.hashCode(npis[entry])) & mask;
+                while (table[slot] != 0 && npis[table[slot] - 1] != npis[entry]) {
+                    slot = (slot + 1) & mask;
+                }
+                if (table[slot] == 0) {
+                    table[slot] = entry + 1;
+                }
+            }
+            return table;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package gov.samhsa.c2s.pep.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous appender that never blocks the logging thread. Events at INFO and below are discarded once the
+ * remaining capacity of the bounded queue falls under the discarding threshold, and all events are dropped while the
+ * queue is full, so that a slow destination such as Logstash cannot back up into the request latency. The discarded
+ * and dropped events are counted for {@link LoggingMetrics}; events lost in a race for the last free slot of the queue
+ * are not counted.
+ */
+public class DroppingAsyncAppender extends AsyncAppender {
+
+    private final AtomicLong discarded = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    public DroppingAsyncAppender() {
+        setNeverBlock(true);
+    }
+
+    @Override
+    protected void append(ILoggingEvent eventObject) {
+        if (isStarted() && getRemainingCapacity() == 0) {
+            dropped.incrementAndGet();
+            return;
+        }
+        super.append(eventObject);
+    }
+
+    /**
+     * Called by {@link AsyncAppender} only while the queue is below the discarding threshold.
+     */
+    @Override
+    protected boolean isDiscardable(ILoggingEvent event) {
+        final boolean discardable = super.isDiscardable(event);
+        if (discardable) {
+            discarded.incrementAndGet();
+        }
+        return discardable;
+    }
+
+    public long getDiscarded() {
+        return discarded.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,57 @@
+package gov.samhsa.c2s.pep.logging;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.Appender;
+import org.slf4j.ILoggerFactory;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Publishes the queue depth and the discarded and dropped events of the {@link DroppingAsyncAppender}s attached to the
+ * root logger as {@code pep.logging.<appender>.*}, and the events denied by the {@link RateLimitingTurboFilter}s as
+ * {@code pep.logging.rate-limited}. The logback configuration is looked up on each call because it is reloaded by
+ * Spring Boot during the startup.
+ */
+public class LoggingMetrics implements PublicMetrics {
+
+    private static final String METRIC_PREFIX = "pep.logging.";
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        final ILoggerFactory loggerFactory = LoggerFactory.getILoggerFactory();
+        if (!(loggerFactory instanceof LoggerContext)) {
+            return Collections.emptyList();
+        }
+        final LoggerContext loggerContext = (LoggerContext) loggerFactory;
+        final List<Metric<?>> metrics = new ArrayList<>();
+        final Iterator<Appender<ILoggingEvent>> appenders = loggerContext.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME).iteratorForAppenders();
+        while (appenders.hasNext()) {
+            final Appender<ILoggingEvent> appender = appenders.next();
+            if (appender instanceof DroppingAsyncAppender) {
+                final DroppingAsyncAppender asyncAppender = (DroppingAsyncAppender) appender;
+                final String prefix = METRIC_PREFIX + asyncAppender.getName() + ".";
+                metrics.add(new Metric<>(prefix + "queue-size", asyncAppender.getNumberOfElementsInQueue()));
+                metrics.add(new Metric<>(prefix + "remaining-capacity", asyncAppender.getRemainingCapacity()));
+                metrics.add(new Metric<>(prefix + "discarded", asyncAppender.getDiscarded()));
+                metrics.add(new Metric<>(prefix + "dropped", asyncAppender.getDropped()));
+            }
+        }
+        long rateLimited = 0;
+        for (TurboFilter turboFilter : loggerContext.getTurboFilterList()) {
+            if (turboFilter instanceof RateLimitingTurboFilter) {
+                rateLimited += ((RateLimitingTurboFilter) turboFilter).getDenied();
+            }
+        }
+        metrics.add(new Metric<>(METRIC_PREFIX + "rate-limited", rateLimited));
+        return metrics;
+    }
+}
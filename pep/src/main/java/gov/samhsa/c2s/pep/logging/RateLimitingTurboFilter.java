@@ -0,0 +1,102 @@
+package gov.samhsa.c2s.pep.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the events of the configured loggers (and their descendants) at or below the threshold level to a maximum
+ * number per logger and second, the events above the limit are denied and counted. Events above the threshold level,
+ * by default WARN and ERROR, are never limited. Configured in {@code logback-spring.xml} with repeated
+ * {@code <logger>} elements, {@code <level>} and {@code <maxEventsPerSecond>}.
+ */
+public class RateLimitingTurboFilter extends TurboFilter {
+
+    private final LongSupplier currentTimeMillis;
+
+    private final List<String> loggers = new ArrayList<>();
+
+    private final ConcurrentMap<String, RateWindow> windows = new ConcurrentHashMap<>();
+
+    private final AtomicLong denied = new AtomicLong();
+
+    private Level level = Level.INFO;
+
+    private int maxEventsPerSecond = 100;
+
+    public RateLimitingTurboFilter() {
+        this(System::currentTimeMillis);
+    }
+
+    RateLimitingTurboFilter(LongSupplier currentTimeMillis) {
+        this.currentTimeMillis = currentTimeMillis;
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // isXxxEnabled() calls have no format, only the logging calls themselves are counted
+        if (!isStarted() || format == null || level.levelInt > this.level.levelInt
+                || !level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+        if (!isLimited(logger.getName())) {
+            return FilterReply.NEUTRAL;
+        }
+        final RateWindow window = windows.computeIfAbsent(logger.getName(), name -> new RateWindow());
+        if (window.tryAcquire(currentTimeMillis.getAsLong() / 1000, maxEventsPerSecond)) {
+            return FilterReply.NEUTRAL;
+        }
+        denied.incrementAndGet();
+        return FilterReply.DENY;
+    }
+
+    public void addLogger(String logger) {
+        loggers.add(logger);
+    }
+
+    public void setLevel(String level) {
+        this.level = Level.toLevel(level, Level.INFO);
+    }
+
+    public void setMaxEventsPerSecond(int maxEventsPerSecond) {
+        this.maxEventsPerSecond = maxEventsPerSecond;
+    }
+
+    public long getDenied() {
+        return denied.get();
+    }
+
+    private boolean isLimited(String name) {
+        for (String logger : loggers) {
+            if (name.equals(logger) || (name.startsWith(logger) && name.charAt(logger.length()) == '.')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class RateWindow {
+
+        private final AtomicLong second = new AtomicLong();
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        private boolean tryAcquire(long currentSecond, int maxEvents) {
+            final long windowSecond = second.get();
+            if (windowSecond != currentSecond && second.compareAndSet(windowSecond, currentSecond)) {
+                count.set(0);
+            }
+            return count.incrementAndGet() <= maxEvents;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package gov.samhsa.c2s.pep.service;
+
+import com.codahale.metrics.MetricRegistry;
+import gov.samhsa.c2s.pep.infrastructure.dto.SubjectPurposeOfUse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the latency of each stage of the access flow in histogram timers, which are published with their
+ * percentiles by the actuator metrics endpoint. Tags are encoded in the metric names as
+ * {@code pep.access.<stage>.purpose-of-use.<purposeOfUse>.decision.<decision>.document-size.<bucket>}.
+ */
+@Component
+public class AccessMetrics {
+
+    public static final String DECISION_ERROR = "error";
+    private static final String METRIC_PREFIX = "pep.access.";
+    private static final String UNKNOWN = "unknown";
+    private static final int KB = 1024;
+    private static final int MB = 1024 * KB;
+
+    private final MetricRegistry metricRegistry;
+
+    @Autowired
+    public AccessMetrics(MetricRegistry metricRegistry) {
+        this.metricRegistry = metricRegistry;
+    }
+
+    /**
+     * Records the duration of a stage.
+     *
+     * @param purposeOfUse the purpose of use of the request, or null if it is not known in the stage
+     * @param decision     the PDP decision, or {@value #DECISION_ERROR} if the stage failed
+     * @param documentSize the size in bytes of the document processed in the stage, 0 if there is no document
+     */
+    public void recordStage(Stage stage, SubjectPurposeOfUse purposeOfUse, String decision, int documentSize, long durationInNanos) {
+        final String name = METRIC_PREFIX + stage.getName() +
+                ".purpose-of-use." + (purposeOfUse != null ? purposeOfUse.getPurpose().toLowerCase(Locale.ENGLISH) : UNKNOWN) +
+                ".decision." + toTagValue(decision) +
+                ".document-size." + toSizeBucket(documentSize);
+        metricRegistry.timer(name).update(durationInNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the time a task of the stage waited in the queue of its executor before it started.
+     */
+    public void recordQueueTime(Stage stage, long durationInNanos) {
+        metricRegistry.timer(METRIC_PREFIX + stage.getName() + ".queue-time").update(durationInNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts a task of the stage rejected by its executor.
+     */
+    public void recordRejected(Stage stage) {
+        metricRegistry.counter(METRIC_PREFIX + stage.getName() + ".rejected").inc();
+    }
+
+    /**
+     * Counts a failed call of a feign client by the HTTP status it returned, calls that were not completed because the
+     * client timed out, was short-circuited or rejected are counted as {@code unavailable}.
+     */
+    public void recordFeignError(String clientName, int status) {
+        final String statusTag = status > 0 ? String.valueOf(status) : "unavailable";
+        metricRegistry.counter(METRIC_PREFIX + "feign." + clientName + ".status." + statusTag).inc();
+    }
+
+    private static String toTagValue(String value) {
+        return value != null && !value.isEmpty() ? value.toLowerCase(Locale.ENGLISH).replaceAll("[^a-z0-9-]", "-") : UNKNOWN;
+    }
+
+    private static String toSizeBucket(int documentSize) {
+        if (documentSize <= 0) {
+            return "none";
+        } else if (documentSize < 100 * KB) {
+            return "lt-100kb";
+        } else if (documentSize < MB) {
+            return "lt-1mb";
+        } else if (documentSize < 10 * MB) {
+            return "lt-10mb";
+        } else {
+            return "gte-10mb";
+        }
+    }
+
+    public enum Stage {
+        PDP("pdp"),
+        DSS("dss"),
+        HTML_TRANSFORM("html-transform"),
+        SERIALIZATION("serialization");
+
+        private final String name;
+
+        Stage(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
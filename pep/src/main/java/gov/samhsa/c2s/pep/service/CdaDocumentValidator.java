@@ -0,0 +1,143 @@
+package gov.samhsa.c2s.pep.service;
+
+import gov.samhsa.c2s.common.log.Logger;
+import gov.samhsa.c2s.common.log.LoggerFactory;
+import gov.samhsa.c2s.pep.service.exception.InvalidDocumentException;
+import gov.samhsa.c2s.pep.service.exception.PepException;
+import org.springframework.util.StringUtils;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Checks that a document is well-formed XML with the basic structure of a CDA document: a {@code ClinicalDocument}
+ * root element in the HL7 v3 namespace with a {@code component}. The check is a single streaming SAX pass, so that
+ * it completes while the policy decision is evaluated and malformed documents are rejected without calling DSS.
+ */
+public class CdaDocumentValidator {
+
+    private static final String HL7_V3_NAMESPACE = "urn:hl7-org:v3";
+    private static final String CLINICAL_DOCUMENT = "ClinicalDocument";
+    private static final String COMPONENT = "component";
+
+    private final Logger logger = LoggerFactory.getLogger(CdaDocumentValidator.class);
+
+    private final Executor documentValidationExecutor;
+
+    private final boolean enabled;
+
+    private final SAXParserFactory saxParserFactory;
+
+    public CdaDocumentValidator(Executor documentValidationExecutor, boolean enabled) {
+        this.documentValidationExecutor = documentValidationExecutor;
+        this.enabled = enabled;
+        this.saxParserFactory = createSaxParserFactory();
+    }
+
+    /**
+     * Starts the validation of the document on the validation executor.
+     *
+     * @return a future completed when the document is valid, or completed exceptionally with an
+     * {@link InvalidDocumentException}; an already completed future if the validation is disabled
+     */
+    public CompletableFuture<Void> validateAsync(byte[] document, String encoding) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> validate(document, encoding), documentValidationExecutor);
+    }
+
+    /**
+     * @throws InvalidDocumentException if the document is not a well-formed CDA document
+     */
+    public void validate(byte[] document, String encoding) {
+        final InputSource inputSource = new InputSource(new ByteArrayInputStream(document));
+        inputSource.setEncoding(toCharset(encoding).name());
+        final CdaStructureHandler handler = new CdaStructureHandler();
+        try {
+            saxParserFactory.newSAXParser().parse(inputSource, handler);
+        } catch (SAXException | IOException e) {
+            logger.info("Document is not well-formed XML: " + e.getMessage());
+            throw new InvalidDocumentException("Document is not well-formed XML", e);
+        } catch (ParserConfigurationException e) {
+            throw new PepException("Unable to create the XML parser for document validation", e);
+        }
+        if (!handler.isClinicalDocument()) {
+            logger.info("Document root element is not an HL7 v3 ClinicalDocument");
+            throw new InvalidDocumentException("Document is not a CDA document");
+        }
+        if (!handler.hasComponent()) {
+            logger.info("Document has no component element");
+            throw new InvalidDocumentException("CDA document has no component");
+        }
+    }
+
+    private static Charset toCharset(String encoding) {
+        if (!StringUtils.hasText(encoding)) {
+            return StandardCharsets.UTF_8;
+        }
+        try {
+            return Charset.forName(encoding);
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            throw new InvalidDocumentException("Unsupported document encoding: " + encoding, e);
+        }
+    }
+
+    private static SAXParserFactory createSaxParserFactory() {
+        final SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        try {
+            // Do not resolve external entities or DTDs referenced by the document
+            factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+            factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new PepException("Unable to configure the XML parser for document validation", e);
+        }
+        return factory;
+    }
+
+    private static class CdaStructureHandler extends DefaultHandler {
+
+        private int depth;
+
+        private boolean clinicalDocument;
+
+        private boolean component;
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            depth++;
+            if (depth == 1) {
+                clinicalDocument = HL7_V3_NAMESPACE.equals(uri) && CLINICAL_DOCUMENT.equals(localName);
+            } else if (depth == 2 && HL7_V3_NAMESPACE.equals(uri) && COMPONENT.equals(localName)) {
+                component = true;
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            depth--;
+        }
+
+        boolean isClinicalDocument() {
+            return clinicalDocument;
+        }
+
+        boolean hasComponent() {
+            return component;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package gov.samhsa.c2s.pep.service;
+
+import gov.samhsa.c2s.common.log.Logger;
+import gov.samhsa.c2s.common.log.LoggerFactory;
+import gov.samhsa.c2s.pep.service.exception.PepException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Renders segmented CDA documents to HTML by streaming the document bytes straight through the precompiled CDA
+ * stylesheet into an {@link OutputStream}, without building intermediate {@link String} or DOM copies.
+ */
+@Component
+public class CdaHtmlRenderer {
+
+    private final Logger logger = LoggerFactory.getLogger(CdaHtmlRenderer.class);
+
+    private final CdaStylesheetRegistry cdaStylesheetRegistry;
+
+    private final SAXParserFactory saxParserFactory;
+
+    @Autowired
+    public CdaHtmlRenderer(CdaStylesheetRegistry cdaStylesheetRegistry) {
+        this.cdaStylesheetRegistry = cdaStylesheetRegistry;
+        this.saxParserFactory = createSaxParserFactory();
+    }
+
+    /**
+     * Renders the segmented document and returns the HTML encoded with the document encoding. Used where the HTML is
+     * kept or embedded in a response, streamed responses render to their output stream instead.
+     */
+    public byte[] render(byte[] segmentedDocument, String encoding, Locale locale) {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream(segmentedDocument.length);
+        render(segmentedDocument, encoding, locale, output);
+        return output.toByteArray();
+    }
+
+    /**
+     * Renders the segmented document to the given output stream using the document encoding. The output stream is
+     * written as the HTML is produced and is not closed by this method.
+     */
+    public void render(byte[] segmentedDocument, String encoding, Locale locale, OutputStream output) {
+        final Charset encodingCharset = StringUtils.hasText(encoding) ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+        final InputSource inputSource = new InputSource(new ByteArrayInputStream(segmentedDocument));
+        inputSource.setEncoding(encodingCharset.name());
+        try {
+            final Transformer transformer = cdaStylesheetRegistry.getTemplates(locale).newTransformer();
+            transformer.setOutputProperty(OutputKeys.ENCODING, encodingCharset.name());
+            transformer.transform(new SAXSource(newXmlReader(), inputSource), new StreamResult(output));
+        } catch (TransformerException | SAXException | ParserConfigurationException e) {
+            logger.error("Unable to transform the segmented document to HTML", e);
+            throw new PepException("Unable to transform the segmented document to HTML", e);
+        }
+    }
+
+    private XMLReader newXmlReader() throws SAXException, ParserConfigurationException {
+        return saxParserFactory.newSAXParser().getXMLReader();
+    }
+
+    private static SAXParserFactory createSaxParserFactory() {
+        final SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        try {
+            // Do not resolve external entities or DTDs referenced by the segmented document
+            factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+            factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new PepException("Unable to configure the XML parser for HTML rendering", e);
+        }
+        return factory;
+    }
+}
@@ -0,0 +1,69 @@
+package gov.samhsa.c2s.pep.service;
+
+import gov.samhsa.c2s.common.log.Logger;
+import gov.samhsa.c2s.common.log.LoggerFactory;
+import gov.samhsa.c2s.pep.service.exception.PepException;
+import net.sf.saxon.TransformerFactoryImpl;
+import org.springframework.stereotype.Component;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Holds the CDA stylesheets compiled once at startup. {@link Templates} are thread-safe, so the same instance is
+ * shared by every request thread and only a lightweight {@link javax.xml.transform.Transformer} is created per render.
+ */
+@Component
+public class CdaStylesheetRegistry {
+
+    private static final String CDA_XSL_ENGLISH = "CDA_ENGLISH.xsl";
+    private static final String CDA_XSL_SPANISH = "CDA_SPANISH.xsl";
+    private static final String ENGLISH_CODE = "en";
+    private static final String SPANISH_CODE = "es";
+
+    private final Logger logger = LoggerFactory.getLogger(CdaStylesheetRegistry.class);
+
+    private final Map<String, Templates> templatesByLanguage;
+
+    public CdaStylesheetRegistry() {
+        final TransformerFactory transformerFactory = new TransformerFactoryImpl();
+        final Map<String, Templates> templates = new HashMap<>();
+        templates.put(ENGLISH_CODE, compile(transformerFactory, CDA_XSL_ENGLISH));
+        templates.put(SPANISH_CODE, compile(transformerFactory, CDA_XSL_SPANISH));
+        this.templatesByLanguage = Collections.unmodifiableMap(templates);
+    }
+
+    /**
+     * @return the compiled CDA stylesheet for the language of the given locale, falling back to English
+     */
+    public Templates getTemplates(Locale locale) {
+        return Optional.ofNullable(locale)
+                .map(Locale::getLanguage)
+                .map(templatesByLanguage::get)
+                .orElseGet(() -> templatesByLanguage.get(ENGLISH_CODE));
+    }
+
+    private Templates compile(TransformerFactory transformerFactory, String xslName) {
+        logger.info("Compiling CDA stylesheet: " + xslName);
+        final URL xslUrl = Thread.currentThread().getContextClassLoader().getResource(xslName);
+        if (xslUrl == null) {
+            throw new PepException("CDA stylesheet cannot be found in classpath: " + xslName);
+        }
+        try (InputStream xslStream = xslUrl.openStream()) {
+            // The system id is required to resolve the relative xsl:import and document('') references
+            return transformerFactory.newTemplates(new StreamSource(xslStream, xslUrl.toExternalForm()));
+        } catch (IOException | TransformerConfigurationException e) {
+            throw new PepException("Unable to compile CDA stylesheet: " + xslName, e);
+        }
+    }
+}
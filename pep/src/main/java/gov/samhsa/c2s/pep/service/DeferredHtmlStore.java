@@ -0,0 +1,131 @@
+package gov.samhsa.c2s.pep.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import gov.samhsa.c2s.pep.infrastructure.dto.SubjectPurposeOfUse;
+import gov.samhsa.c2s.pep.service.dto.AccessResponseWithDocumentDto;
+import gov.samhsa.c2s.pep.service.dto.RenderedHtmlDto;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps segmented documents for a short time behind random render handles, so that their HTML is only rendered when
+ * a client asks for it. The HTML is rendered once per handle and kept with the document until the handle expires.
+ */
+public class DeferredHtmlStore implements PublicMetrics {
+
+    private static final String METRIC_PREFIX = "pep.deferred-html.";
+
+    /**
+     * The rendered HTML is not known when a handle is registered, it is estimated as twice the document size
+     */
+    private static final int HTML_SIZE_FACTOR = 2;
+
+    private static final int ENTRY_OVERHEAD_IN_BYTES = 512;
+
+    private final Cache<String, PendingHtml> cache;
+
+    private final AtomicLong registered = new AtomicLong();
+
+    private final AtomicLong rendered = new AtomicLong();
+
+    public DeferredHtmlStore(long timeToLiveInSeconds, long maximumSizeInBytes) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(timeToLiveInSeconds, TimeUnit.SECONDS)
+                .maximumWeight(maximumSizeInBytes)
+                .weigher((String handle, PendingHtml pendingHtml) -> pendingHtml.weigh())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @return the render handle of the segmented document
+     */
+    public String register(AccessResponseWithDocumentDto accessResponse, Locale locale) {
+        final String handle = UUID.randomUUID().toString();
+        cache.put(handle, new PendingHtml(accessResponse.getSegmentedDocument(), accessResponse.getSegmentedDocumentEncoding(), locale,
+                accessResponse.getPurposeOfUse(), accessResponse.getDecision()));
+        registered.incrementAndGet();
+        return handle;
+    }
+
+    /**
+     * Returns the HTML of the segmented document of the handle, rendering it with the given renderer on the first call.
+     *
+     * @param renderer renders a segmented document with its encoding and locale, given the purpose of use and decision
+     *                 of the access request that returned the handle
+     * @return the HTML, or an empty optional if the handle is unknown or expired
+     */
+    public Optional<RenderedHtmlDto> getOrRender(String handle, RenderFunction renderer) {
+        return Optional.ofNullable(cache.getIfPresent(handle))
+                .map(pendingHtml -> pendingHtml.getOrRender(renderer));
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        final CacheStats stats = cache.stats();
+        final List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>(METRIC_PREFIX + "size", cache.estimatedSize()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "registered", registered.get()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "rendered", rendered.get()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "hit", stats.hitCount()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "miss", stats.missCount()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "eviction", stats.evictionCount()));
+        return Collections.unmodifiableList(metrics);
+    }
+
+    @FunctionalInterface
+    public interface RenderFunction {
+        byte[] render(byte[] segmentedDocument, String encoding, Locale locale, SubjectPurposeOfUse purposeOfUse, String decision);
+    }
+
+    private class PendingHtml {
+
+        private final byte[] segmentedDocument;
+
+        private final String encoding;
+
+        private final Locale locale;
+
+        private final SubjectPurposeOfUse purposeOfUse;
+
+        private final String decision;
+
+        private byte[] html;
+
+        private PendingHtml(byte[] segmentedDocument, String encoding, Locale locale, SubjectPurposeOfUse purposeOfUse, String decision) {
+            this.segmentedDocument = segmentedDocument;
+            this.encoding = encoding;
+            this.locale = locale;
+            this.purposeOfUse = purposeOfUse;
+            this.decision = decision;
+        }
+
+        /**
+         * Concurrent requests for the same handle wait for a single rendering
+         */
+        private synchronized RenderedHtmlDto getOrRender(RenderFunction renderer) {
+            if (html == null) {
+                html = renderer.render(segmentedDocument, encoding, locale, purposeOfUse, decision);
+                rendered.incrementAndGet();
+            }
+            return RenderedHtmlDto.of(html, encoding, purposeOfUse, decision);
+        }
+
+        private int weigh() {
+            final long size = ENTRY_OVERHEAD_IN_BYTES + (long) segmentedDocument.length * (1 + HTML_SIZE_FACTOR);
+            return (int) Math.min(Integer.MAX_VALUE, size);
+        }
+    }
+}
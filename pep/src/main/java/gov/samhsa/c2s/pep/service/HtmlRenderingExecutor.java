@@ -0,0 +1,290 @@
+package gov.samhsa.c2s.pep.service;
+
+import gov.samhsa.c2s.common.log.Logger;
+import gov.samhsa.c2s.common.log.LoggerFactory;
+import gov.samhsa.c2s.pep.service.exception.ServiceUnavailableException;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs the CPU-bound XSLT rendering of segmented documents on a dedicated pool sized to the processors, so that a burst
+ * of large renders cannot occupy every request thread. The calling thread waits for the rendering without using CPU.
+ * Renderings rejected by a full queue fail with {@link ServiceUnavailableException}, unless the executor is configured
+ * to run them on the calling thread. The time each rendering waits in the queue is recorded in
+ * {@code pep.access.html-transform.queue-time}.
+ * <p>
+ * Streamed renderings write into a bounded queue of chunks that the calling thread drains to the client, so the
+ * rendering threads never write to a client and at most the queued chunks of HTML are held per stream. The chunks are
+ * reused from the {@link OutputBufferPool}.
+ */
+public class HtmlRenderingExecutor implements PublicMetrics {
+
+    private static final String METRIC_PREFIX = "pep.html-rendering-executor.";
+
+    private final Logger logger = LoggerFactory.getLogger(HtmlRenderingExecutor.class);
+
+    private final ThreadPoolExecutor executor;
+
+    private final AccessMetrics accessMetrics;
+
+    private final OutputBufferPool outputBufferPool;
+
+    private final int streamChunkSizeInBytes;
+
+    private final int streamQueueCapacityInChunks;
+
+    private final long streamStallTimeoutInMillis;
+
+    public HtmlRenderingExecutor(ThreadPoolExecutor executor, AccessMetrics accessMetrics, OutputBufferPool outputBufferPool,
+                                 int streamChunkSizeInBytes, int streamQueueCapacityInChunks, long streamStallTimeoutInMillis) {
+        this.executor = executor;
+        this.accessMetrics = accessMetrics;
+        this.outputBufferPool = outputBufferPool;
+        this.streamChunkSizeInBytes = streamChunkSizeInBytes;
+        this.streamQueueCapacityInChunks = streamQueueCapacityInChunks;
+        this.streamStallTimeoutInMillis = streamStallTimeoutInMillis;
+    }
+
+    /**
+     * Runs the rendering on the rendering pool and waits for its result. Exceptions of the rendering are rethrown as
+     * they are.
+     */
+    public <T> T render(Supplier<T> rendering) {
+        final long submitted = System.nanoTime();
+        final CompletableFuture<T> result;
+        try {
+            result = CompletableFuture.supplyAsync(() -> {
+                accessMetrics.recordQueueTime(AccessMetrics.Stage.HTML_TRANSFORM, System.nanoTime() - submitted);
+                return rendering.get();
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            accessMetrics.recordRejected(AccessMetrics.Stage.HTML_TRANSFORM);
+            logger.info("Rejecting HTML rendering, " + executor.getQueue().size() + " renderings are queued");
+            throw new ServiceUnavailableException("HTML rendering is temporarily unavailable", e);
+        }
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Runs the rendering on the rendering pool and writes its output to the given output stream on the calling thread
+     * while it is rendered. The rendering is aborted when its output is not drained within the stall timeout, because
+     * the client reads too slowly or the calling thread stopped writing. Renderings that the rejection policy runs on
+     * the calling thread write to the output stream directly. Exceptions of the rendering are rethrown as they are.
+     */
+    public void stream(Consumer<OutputStream> rendering, OutputStream output) throws IOException {
+        final ChunkPipe pipe = new ChunkPipe(outputBufferPool, streamChunkSizeInBytes, streamQueueCapacityInChunks, streamStallTimeoutInMillis);
+        final Thread callingThread = Thread.currentThread();
+        final long submitted = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                if (Thread.currentThread() == callingThread) {
+                    rendering.accept(output);
+                    pipe.finish();
+                    return;
+                }
+                accessMetrics.recordQueueTime(AccessMetrics.Stage.HTML_TRANSFORM, System.nanoTime() - submitted);
+                try {
+                    rendering.accept(pipe);
+                    pipe.finish();
+                } catch (RuntimeException | Error e) {
+                    pipe.fail(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            accessMetrics.recordRejected(AccessMetrics.Stage.HTML_TRANSFORM);
+            logger.info("Rejecting HTML rendering, " + executor.getQueue().size() + " renderings are queued");
+            throw new ServiceUnavailableException("HTML rendering is temporarily unavailable", e);
+        }
+        pipe.drainTo(output);
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        final List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>(METRIC_PREFIX + "active", executor.getActiveCount()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "pool-size", executor.getMaximumPoolSize()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "queued", executor.getQueue().size()));
+        return metrics;
+    }
+
+    /**
+     * Hands the output of a rendering thread over to the thread writing it in chunks through a bounded queue. The
+     * chunks are pooled buffers, which the writing thread gives back once it has written them.
+     */
+    private static class ChunkPipe extends OutputStream {
+
+        private static final OutputBufferPool.Buffer END_OF_STREAM = new OutputBufferPool.Buffer(0);
+
+        private static final long POLL_INTERVAL_IN_MILLIS = 100;
+
+        private final OutputBufferPool outputBufferPool;
+
+        private final BlockingQueue<OutputBufferPool.Buffer> chunks;
+
+        private final int chunkSizeInBytes;
+
+        private final long stallTimeoutInMillis;
+
+        private OutputBufferPool.Buffer chunk;
+
+        private volatile boolean closed;
+
+        private volatile Throwable failure;
+
+        private ChunkPipe(OutputBufferPool outputBufferPool, int chunkSizeInBytes, int queueCapacityInChunks, long stallTimeoutInMillis) {
+            this.outputBufferPool = outputBufferPool;
+            this.chunks = new ArrayBlockingQueue<>(queueCapacityInChunks);
+            this.chunkSizeInBytes = chunkSizeInBytes;
+            this.stallTimeoutInMillis = stallTimeoutInMillis;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            currentChunk().write(b);
+            if (chunk.size() == chunkSizeInBytes) {
+                handOver();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                final int length = Math.min(len, chunkSizeInBytes - currentChunk().size());
+                chunk.write(b, off, length);
+                off += length;
+                len -= length;
+                if (chunk.size() == chunkSizeInBytes) {
+                    handOver();
+                }
+            }
+        }
+
+        /**
+         * Called by the rendering thread once the rendering completed
+         */
+        private void finish() {
+            try {
+                if (chunk != null) {
+                    handOver();
+                }
+                put(END_OF_STREAM);
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Called by the rendering thread when the rendering failed
+         */
+        private void fail(Throwable e) {
+            if (chunk != null) {
+                outputBufferPool.release(chunk);
+                chunk = null;
+            }
+            failure = e;
+            chunks.offer(END_OF_STREAM);
+        }
+
+        /**
+         * Writes the chunks to the output stream as they are rendered until the rendering completes or fails
+         */
+        private void drainTo(OutputStream output) throws IOException {
+            try {
+                while (true) {
+                    final OutputBufferPool.Buffer next = chunks.poll(POLL_INTERVAL_IN_MILLIS, TimeUnit.MILLISECONDS);
+                    if (next == null || next == END_OF_STREAM) {
+                        rethrowFailure();
+                        if (next == END_OF_STREAM) {
+                            return;
+                        }
+                    } else {
+                        try {
+                            next.writeTo(output);
+                        } finally {
+                            outputBufferPool.release(next);
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while streaming the HTML rendering");
+            } finally {
+                // Aborts the rendering if it is still running and gives back the chunks that were not written
+                closed = true;
+                final List<OutputBufferPool.Buffer> unwritten = new ArrayList<>();
+                chunks.drainTo(unwritten);
+                unwritten.stream()
+                        .filter(buffer -> buffer != END_OF_STREAM)
+                        .forEach(outputBufferPool::release);
+            }
+        }
+
+        private OutputBufferPool.Buffer currentChunk() {
+            if (chunk == null) {
+                chunk = outputBufferPool.acquire(chunkSizeInBytes);
+            }
+            return chunk;
+        }
+
+        private void handOver() throws IOException {
+            final OutputBufferPool.Buffer full = chunk;
+            chunk = null;
+            try {
+                put(full);
+            } catch (IOException e) {
+                outputBufferPool.release(full);
+                throw e;
+            }
+        }
+
+        private void put(OutputBufferPool.Buffer next) throws IOException {
+            if (closed) {
+                throw new IOException("The HTML stream was closed");
+            }
+            try {
+                if (!chunks.offer(next, stallTimeoutInMillis, TimeUnit.MILLISECONDS)) {
+                    throw new IOException("The HTML stream was not read within " + stallTimeoutInMillis + " ms");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while streaming the HTML rendering");
+            }
+        }
+
+        private void rethrowFailure() throws IOException {
+            final Throwable e = failure;
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            }
+            if (e instanceof Error) {
+                throw (Error) e;
+            }
+            if (e != null) {
+                throw new IOException("Unable to stream the HTML rendering", e);
+            }
+        }
+    }
+}
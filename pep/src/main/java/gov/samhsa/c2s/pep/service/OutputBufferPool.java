@@ -0,0 +1,84 @@
+package gov.samhsa.c2s.pep.service;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of output buffers reused for the chunks of streamed HTML, so that streaming a document does not allocate new
+ * buffers for each chunk. Buffers are given back by the thread that wrote their content to the client. Buffers that
+ * grew above the retained size are dropped on release, which bounds the heap held by the pool to the pool size times
+ * the retained size.
+ */
+public class OutputBufferPool implements PublicMetrics {
+
+    private static final String METRIC_PREFIX = "pep.output-buffer-pool.";
+
+    private final BlockingQueue<Buffer> buffers;
+
+    private final int maxRetainedSizeInBytes;
+
+    private final AtomicLong reused = new AtomicLong();
+
+    private final AtomicLong allocated = new AtomicLong();
+
+    public OutputBufferPool(int poolSize, int maxRetainedSizeInBytes) {
+        this.buffers = new ArrayBlockingQueue<>(Math.max(1, poolSize));
+        this.maxRetainedSizeInBytes = maxRetainedSizeInBytes;
+    }
+
+    /**
+     * @return an empty buffer with at least the expected capacity, which should be given back with
+     * {@link #release(Buffer)} once its content has been written
+     */
+    public Buffer acquire(int expectedSizeInBytes) {
+        final Buffer buffer = buffers.poll();
+        if (buffer == null) {
+            allocated.incrementAndGet();
+            return new Buffer(expectedSizeInBytes);
+        }
+        reused.incrementAndGet();
+        buffer.ensureCapacity(expectedSizeInBytes);
+        return buffer;
+    }
+
+    public void release(Buffer buffer) {
+        if (buffer.capacity() <= maxRetainedSizeInBytes) {
+            buffer.reset();
+            buffers.offer(buffer);
+        }
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        final List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>(METRIC_PREFIX + "pooled", buffers.size()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "reused", reused.get()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "allocated", allocated.get()));
+        return metrics;
+    }
+
+    public static class Buffer extends ByteArrayOutputStream {
+
+        Buffer(int size) {
+            super(size);
+        }
+
+        private int capacity() {
+            return buf.length;
+        }
+
+        private void ensureCapacity(int size) {
+            if (size > buf.length) {
+                buf = new byte[size];
+            }
+        }
+    }
+}
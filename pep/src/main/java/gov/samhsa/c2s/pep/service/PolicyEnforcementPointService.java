@@ -2,10 +2,51 @@
 
 import gov.samhsa.c2s.pep.service.dto.AccessRequestDto;
 import gov.samhsa.c2s.pep.service.dto.AccessResponseDto;
+import gov.samhsa.c2s.pep.service.dto.AccessResponseWithDocumentDto;
+import gov.samhsa.c2s.pep.service.dto.BatchAccessResponseDto;
+import gov.samhsa.c2s.pep.service.dto.RenderedHtmlDto;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface PolicyEnforcementPointService {
 
     AccessResponseDto accessDocument(AccessRequestDto accessRequest, Optional<Boolean> getSegmentedDocumentAsHTML);
+
+    /**
+     * Runs the same flow as {@link #accessDocument(AccessRequestDto, Optional)} without rendering the HTML. The response
+     * carries a short-lived handle to render the HTML later with {@link #getSegmentedDocumentAsHtml(String)}.
+     */
+    AccessResponseDto accessDocumentWithDeferredHtml(AccessRequestDto accessRequest);
+
+    /**
+     * Renders the HTML of the segmented document of a handle returned by
+     * {@link #accessDocumentWithDeferredHtml(AccessRequestDto)}, the HTML is rendered once per handle.
+     *
+     * @throws gov.samhsa.c2s.pep.service.exception.DocumentNotFoundException if the handle is unknown or expired
+     */
+    RenderedHtmlDto getSegmentedDocumentAsHtml(String handle);
+
+    /**
+     * Runs the same flow as {@link #accessDocument(AccessRequestDto, Optional)} with the downstream calls on dedicated
+     * executors, without blocking the calling thread.
+     */
+    CompletableFuture<AccessResponseDto> accessDocumentAsync(AccessRequestDto accessRequest, Optional<Boolean> getSegmentedDocumentAsHTML);
+
+    /**
+     * Evaluates each distinct policy enforcement request of the access requests once and segments the documents in
+     * parallel.
+     *
+     * @return the result of each access request in the order of the access requests
+     */
+    BatchAccessResponseDto accessDocuments(List<AccessRequestDto> accessRequests, Optional<Boolean> getSegmentedDocumentAsHTML);
+
+    /**
+     * Streams the HTML format of the segmented document to the given output stream as it is rendered.
+     */
+    void writeSegmentedDocumentAsHtml(AccessResponseWithDocumentDto accessResponse, Locale locale, OutputStream output) throws IOException;
 }
@@ -1,12 +1,15 @@
 package gov.samhsa.c2s.pep.service;
 
+import com.netflix.hystrix.exception.HystrixBadRequestException;
+import com.netflix.hystrix.exception.HystrixRuntimeException;
 import feign.FeignException;
-import gov.samhsa.c2s.common.document.converter.DocumentXmlConverter;
-import gov.samhsa.c2s.common.document.transformer.XmlTransformer;
 import gov.samhsa.c2s.common.log.Logger;
 import gov.samhsa.c2s.common.log.LoggerFactory;
+import gov.samhsa.c2s.pep.config.BatchAccessProperties;
 import gov.samhsa.c2s.pep.infrastructure.ContextHandlerService;
 import gov.samhsa.c2s.pep.infrastructure.DssService;
+import gov.samhsa.c2s.pep.infrastructure.audit.DecisionAuditLog;
+import gov.samhsa.c2s.pep.infrastructure.audit.DecisionAuditRecord;
 import gov.samhsa.c2s.pep.infrastructure.dto.DSSRequest;
 import gov.samhsa.c2s.pep.infrastructure.dto.DSSResponse;
 import gov.samhsa.c2s.pep.infrastructure.dto.XacmlRequestDto;
@@ -15,46 +18,88 @@
 import gov.samhsa.c2s.pep.service.dto.AccessRequestDto;
 import gov.samhsa.c2s.pep.service.dto.AccessResponseDto;
 import gov.samhsa.c2s.pep.service.dto.AccessResponseWithDocumentDto;
+import gov.samhsa.c2s.pep.service.dto.BatchAccessResponseDto;
+import gov.samhsa.c2s.pep.service.dto.BatchAccessResultDto;
+import gov.samhsa.c2s.pep.service.dto.RenderedHtmlDto;
+import gov.samhsa.c2s.pep.service.exception.DocumentNotFoundException;
 import gov.samhsa.c2s.pep.service.exception.DssClientInterfaceException;
 import gov.samhsa.c2s.pep.service.exception.InvalidDocumentException;
 import gov.samhsa.c2s.pep.service.exception.NoDocumentFoundException;
 import gov.samhsa.c2s.pep.service.exception.PepException;
+import gov.samhsa.c2s.pep.service.exception.ServiceUnavailableException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils;
-import org.w3c.dom.Document;
+import org.springframework.web.bind.annotation.ResponseStatus;
 
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
 public class PolicyEnforcementPointServiceImpl implements PolicyEnforcementPointService {
 
     private static final String PERMIT = "permit";
-    private final static String CDA_XSL_ENGLISH = "CDA_ENGLISH.xsl";
-    private final static String CDA_XSL_SPANISH = "CDA_SPANISH.xsl";
-    private static final String ENGLISH_CODE = "en";
-    private static final String SPANISH_CODE = "es";
 
     private final Logger logger = LoggerFactory.getLogger(PolicyEnforcementPointServiceImpl.class);
 
-    private final DocumentXmlConverter documentXmlConverter;
+    private final AccessMetrics accessMetrics;
 
-    private final XmlTransformer xmlTransformer;
+    private final DecisionAuditLog decisionAuditLog;
+
+    private final CdaDocumentValidator cdaDocumentValidator;
+
+    private final CdaHtmlRenderer cdaHtmlRenderer;
+
+    private final HtmlRenderingExecutor htmlRenderingExecutor;
+
+    private final DeferredHtmlStore deferredHtmlStore;
 
     private final ContextHandlerService contextHandler;
 
     private final DssService dssService;
 
+    private final Executor batchAccessExecutor;
+
+    private final BatchAccessProperties batchAccessProperties;
+
+    private final Executor contextHandlerExecutor;
+
+    private final Executor dssExecutor;
+
     @Autowired
-    public PolicyEnforcementPointServiceImpl(DocumentXmlConverter documentXmlConverter, XmlTransformer xmlTransformer, ContextHandlerService contextHandler, DssService dssService) {
-        this.documentXmlConverter = documentXmlConverter;
-        this.xmlTransformer = xmlTransformer;
+    public PolicyEnforcementPointServiceImpl(AccessMetrics accessMetrics, DecisionAuditLog decisionAuditLog, CdaDocumentValidator cdaDocumentValidator, CdaHtmlRenderer cdaHtmlRenderer,
+                                             HtmlRenderingExecutor htmlRenderingExecutor, DeferredHtmlStore deferredHtmlStore, ContextHandlerService contextHandler, DssService dssService,
+                                             @Qualifier("batchAccessExecutor") Executor batchAccessExecutor, BatchAccessProperties batchAccessProperties,
+                                             @Qualifier("contextHandlerExecutor") Executor contextHandlerExecutor,
+                                             @Qualifier("dssExecutor") Executor dssExecutor) {
+        this.accessMetrics = accessMetrics;
+        this.decisionAuditLog = decisionAuditLog;
+        this.cdaDocumentValidator = cdaDocumentValidator;
+        this.cdaHtmlRenderer = cdaHtmlRenderer;
+        this.htmlRenderingExecutor = htmlRenderingExecutor;
+        this.deferredHtmlStore = deferredHtmlStore;
         this.contextHandler = contextHandler;
         this.dssService = dssService;
+        this.batchAccessExecutor = batchAccessExecutor;
+        this.batchAccessProperties = batchAccessProperties;
+        this.contextHandlerExecutor = contextHandlerExecutor;
+        this.dssExecutor = dssExecutor;
     }
 
     @Override
@@ -62,41 +107,122 @@ public AccessResponseDto accessDocument(AccessRequestDto accessRequest, Optional
         logger.info("Initiating PolicyEnforcementPointService.accessDocument flow");
         final XacmlRequestDto xacmlRequest = accessRequest.getXacmlRequest();
         logger.debug(xacmlRequest::toString);
+        final CompletableFuture<Void> documentValidation = validateDocument(accessRequest);
         final XacmlResponseDto xacmlResponse = enforcePolicy(xacmlRequest);
-        final XacmlResult xacmlResult = XacmlResult.from(xacmlRequest, xacmlResponse);
+        return accessDocument(accessRequest, xacmlResponse, documentValidation, getSegmentedDocumentAsHTML, getLocaleFromContext());
+    }
+
+    @Override
+    public AccessResponseDto accessDocumentWithDeferredHtml(AccessRequestDto accessRequest) {
+        final AccessResponseDto accessResponse = accessDocument(accessRequest, Optional.of(Boolean.FALSE));
+        if (accessResponse instanceof AccessResponseWithDocumentDto) {
+            final AccessResponseWithDocumentDto accessResponseWithDocument = (AccessResponseWithDocumentDto) accessResponse;
+            final String handle = deferredHtmlStore.register(accessResponseWithDocument, getLocaleFromContext());
+            logger.info("Deferring HTML rendering of the segmented document");
+            accessResponseWithDocument.setSegmentedDocumentAsHTMLHandle(Optional.of(handle));
+        }
+        return accessResponse;
+    }
+
+    @Override
+    public RenderedHtmlDto getSegmentedDocumentAsHtml(String handle) {
+        return deferredHtmlStore.getOrRender(handle, (segmentedDocument, encoding, locale, purposeOfUse, decision) -> {
+            logger.info("Rendering deferred HTML format of the segmented document");
+            final long start = System.nanoTime();
+            final byte[] html = convertSegmentedDocumentXmlToHtml(segmentedDocument, encoding, locale);
+            accessMetrics.recordStage(AccessMetrics.Stage.HTML_TRANSFORM, purposeOfUse, decision, segmentedDocument.length, System.nanoTime() - start);
+            return html;
+        }).orElseThrow(() -> new DocumentNotFoundException("The HTML render handle is unknown or expired"));
+    }
+
+    @Override
+    public CompletableFuture<AccessResponseDto> accessDocumentAsync(AccessRequestDto accessRequest, Optional<Boolean> getSegmentedDocumentAsHTML) {
+        logger.info("Initiating PolicyEnforcementPointService.accessDocumentAsync flow");
+        final XacmlRequestDto xacmlRequest = accessRequest.getXacmlRequest();
+        logger.debug(xacmlRequest::toString);
+        final Locale locale = getLocaleFromContext();
+        final CompletableFuture<Void> documentValidation = validateDocument(accessRequest);
+        return supplyAsync(() -> enforcePolicy(xacmlRequest), contextHandlerExecutor)
+                .thenCompose(xacmlResponse -> supplyAsync(
+                        () -> accessDocument(accessRequest, xacmlResponse, documentValidation, getSegmentedDocumentAsHTML, locale), dssExecutor));
+    }
+
+    @Override
+    public BatchAccessResponseDto accessDocuments(List<AccessRequestDto> accessRequests, Optional<Boolean> getSegmentedDocumentAsHTML) {
+        logger.info("Initiating PolicyEnforcementPointService.accessDocuments flow for " + accessRequests.size() + " access requests");
+        final Locale locale = getLocaleFromContext();
+
+        // Each distinct policy enforcement request is evaluated only once, by the first access request that needs it,
+        // and shared by the others
+        final Map<XacmlRequestDto, CompletableFuture<XacmlResponseDto>> xacmlResponses = new ConcurrentHashMap<>();
+        // The access requests of the batch are submitted to the shared executor only as permits of the batch are
+        // released, so that a large batch neither fills the shared queue nor queues ahead of other batches
+        final Semaphore batchPermits = new Semaphore(batchAccessProperties.getConcurrency());
+        final List<CompletableFuture<AccessResponseDto>> accessResponses = new ArrayList<>(accessRequests.size());
+        for (AccessRequestDto accessRequest : accessRequests) {
+            final CompletableFuture<Void> documentValidation = validateDocument(accessRequest);
+            batchPermits.acquireUninterruptibly();
+            final CompletableFuture<AccessResponseDto> accessResponse = supplyAsync(() -> accessDocument(accessRequest,
+                    enforcePolicyOnce(xacmlResponses, accessRequest.getXacmlRequest()), documentValidation, getSegmentedDocumentAsHTML, locale),
+                    batchAccessExecutor);
+            accessResponse.whenComplete((response, e) -> batchPermits.release());
+            accessResponses.add(accessResponse);
+        }
+        logger.debug(() -> "Evaluated " + xacmlResponses.size() + " distinct policy enforcement requests");
+
+        final BatchAccessResponseDto batchAccessResponse = BatchAccessResponseDto.of(accessResponses.stream()
+                .map(this::toBatchAccessResult)
+                .collect(Collectors.toList()));
+        logger.info("Completed PolicyEnforcementPointService.accessDocuments flow, returning response");
+        return batchAccessResponse;
+    }
+
+    @Override
+    public void writeSegmentedDocumentAsHtml(AccessResponseWithDocumentDto accessResponse, Locale locale, OutputStream output) throws IOException {
+        logger.info("Streaming HTML format of the segmented document");
+        final long start = System.nanoTime();
+        htmlRenderingExecutor.stream(html -> cdaHtmlRenderer.render(accessResponse.getSegmentedDocument(), accessResponse.getSegmentedDocumentEncoding(), locale, html),
+                output);
+        accessMetrics.recordStage(AccessMetrics.Stage.HTML_TRANSFORM, accessResponse.getPurposeOfUse(), accessResponse.getDecision(),
+                accessResponse.getSegmentedDocument().length, System.nanoTime() - start);
+    }
+
+    private AccessResponseDto accessDocument(AccessRequestDto accessRequest, XacmlResponseDto xacmlResponse, CompletableFuture<Void> documentValidation,
+                                             Optional<Boolean> getSegmentedDocumentAsHTML, Locale locale) {
+        final XacmlResult xacmlResult = XacmlResult.from(accessRequest.getXacmlRequest(), xacmlResponse);
         logger.debug(xacmlResult::toString);
 
-        assertPDPPermitDecision(xacmlResponse);
+        DecisionAuditRecord.Outcome outcome = DecisionAuditRecord.Outcome.DENIED;
+        try {
+            assertPDPPermitDecision(xacmlResponse);
+            outcome = DecisionAuditRecord.Outcome.FAILED;
+            final AccessResponseDto accessResponse = accessPermittedDocument(accessRequest, xacmlResponse, xacmlResult, documentValidation,
+                    getSegmentedDocumentAsHTML, locale);
+            outcome = accessResponse instanceof AccessResponseWithDocumentDto ?
+                    DecisionAuditRecord.Outcome.SEGMENTED : DecisionAuditRecord.Outcome.PERMITTED;
+            return accessResponse;
+        } finally {
+            decisionAuditLog.record(DecisionAuditRecord.of(accessRequest.getXacmlRequest(), xacmlResult, outcome));
+        }
+    }
 
+    private AccessResponseDto accessPermittedDocument(AccessRequestDto accessRequest, XacmlResponseDto xacmlResponse, XacmlResult xacmlResult,
+                                                      CompletableFuture<Void> documentValidation, Optional<Boolean> getSegmentedDocumentAsHTML,
+                                                      Locale locale) {
         if (accessRequest.getDocument().isPresent()) {
+            awaitDocumentValidation(documentValidation);
             final DSSRequest dssRequest = accessRequest.toDSSRequest(xacmlResult);
             logger.debug(dssRequest::toString);
-            DSSResponse dssResponse;
-            try {
-                logger.debug("Invoking dss feign client - Start");
-                dssResponse = dssService.segmentDocument(dssRequest);
-                logger.debug("Invoking dss feign client - End");
-            }
-            catch (FeignException fe) {
-                int causedByStatus = fe.status();
-
-                switch (causedByStatus) {
-                    case 400:
-                        logger.error("DSS client returned a 400 - BAD REQUEST status, indicating invalid document was passed" +
-                                " to DSS client", fe);
-                        throw new InvalidDocumentException("Invalid document was passed to DSS client");
-                    default:
-                        logger.error("DSS client returned an unexpected instance of FeignException", fe);
-                        throw new DssClientInterfaceException("An unknown error occurred while attempting to communicate " +
-                                "with" +
-                                " DSS service");
-                }
-            }
+            final DSSResponse dssResponse = segmentDocument(dssRequest);
             logger.debug(dssResponse::toString);
             AccessResponseWithDocumentDto accessResponseWithDocument = (AccessResponseWithDocumentDto) AccessResponseWithDocumentDto.from(dssResponse, xacmlResponse);
+            accessResponseWithDocument.setPurposeOfUse(xacmlResult.getSubjectPurposeOfUse());
             if(getSegmentedDocumentAsHTML.isPresent() && getSegmentedDocumentAsHTML.get()){
                 logger.info("Returning XML as well as HTML format of the segmented document");
-                accessResponseWithDocument.setSegmentedDocumentAsHTML(Optional.of(convertSegmentedDocumentXmlToHtml (accessResponseWithDocument.getSegmentedDocument(), accessResponseWithDocument.getSegmentedDocumentEncoding())));
+                final long start = System.nanoTime();
+                accessResponseWithDocument.setSegmentedDocumentAsHTML(Optional.of(convertSegmentedDocumentXmlToHtml (accessResponseWithDocument.getSegmentedDocument(), accessResponseWithDocument.getSegmentedDocumentEncoding(), locale)));
+                accessMetrics.recordStage(AccessMetrics.Stage.HTML_TRANSFORM, xacmlResult.getSubjectPurposeOfUse(), xacmlResult.getPdpDecision(),
+                        accessResponseWithDocument.getSegmentedDocument().length, System.nanoTime() - start);
             }
             logger.debug(accessResponseWithDocument::toString);
             logger.info("Completed PolicyEnforcementPointService.accessDocument flow, returning response");
@@ -108,30 +234,81 @@ public AccessResponseDto accessDocument(AccessRequestDto accessRequest, Optional
         }
     }
 
-    private byte[] convertSegmentedDocumentXmlToHtml (byte[] segmentedDocument, String encoding) {
+    /**
+     * Starts the local validation of the document, if any, so that it runs while the policy decision is evaluated. The
+     * result is only awaited for permitted requests, right before the document is sent to DSS.
+     */
+    private CompletableFuture<Void> validateDocument(AccessRequestDto accessRequest) {
+        return accessRequest.getDocument()
+                .map(document -> cdaDocumentValidator.validateAsync(document, accessRequest.getDocumentEncoding().orElse(null)))
+                .orElseGet(() -> CompletableFuture.completedFuture(null));
+    }
 
-        final Charset encodingCharset = StringUtils.hasText(encoding) ? Charset.forName(encoding) : StandardCharsets.UTF_8;
-        final String segmentedClinicalDocument = new String(segmentedDocument, encodingCharset);
-        final Document xmlDoc = documentXmlConverter.loadDocument(segmentedClinicalDocument);
+    private static void awaitDocumentValidation(CompletableFuture<Void> documentValidation) {
+        try {
+            documentValidation.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private XacmlResponseDto enforcePolicyOnce(Map<XacmlRequestDto, CompletableFuture<XacmlResponseDto>> xacmlResponses, XacmlRequestDto xacmlRequest) {
+        final CompletableFuture<XacmlResponseDto> xacmlResponse = new CompletableFuture<>();
+        final CompletableFuture<XacmlResponseDto> evaluatedXacmlResponse = xacmlResponses.putIfAbsent(xacmlRequest, xacmlResponse);
+        if (evaluatedXacmlResponse != null) {
+            try {
+                return evaluatedXacmlResponse.join();
+            } catch (CompletionException e) {
+                // The access request that evaluated the shared decision only audited its own failure
+                final DecisionAuditRecord.Outcome failedOutcome = e.getCause() instanceof NoDocumentFoundException ?
+                        DecisionAuditRecord.Outcome.NO_CONSENT : DecisionAuditRecord.Outcome.FAILED;
+                decisionAuditLog.record(DecisionAuditRecord.of(xacmlRequest, failedOutcome));
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        try {
+            xacmlResponse.complete(enforcePolicy(xacmlRequest));
+        } catch (RuntimeException e) {
+            xacmlResponse.completeExceptionally(e);
+            throw e;
+        }
+        return xacmlResponse.join();
+    }
 
-        // xslt transformation
-        final String xslUrl = Thread.currentThread().getContextClassLoader().getResource(getLocaleSpecificCdaXSL()).toString();
-        final String output = xmlTransformer.transform(xmlDoc, xslUrl, Optional.empty(), Optional.empty());
-        return output.getBytes(encodingCharset);
+    private BatchAccessResultDto toBatchAccessResult(CompletableFuture<AccessResponseDto> accessResponse) {
+        try {
+            return BatchAccessResultDto.of(HttpStatus.OK.value(), accessResponse.join(), null);
+        } catch (CompletionException e) {
+            final Throwable cause = e.getCause() != null ? e.getCause() : e;
+            final HttpStatus status = Optional.ofNullable(AnnotatedElementUtils.findMergedAnnotation(cause.getClass(), ResponseStatus.class))
+                    .map(ResponseStatus::code)
+                    .orElse(HttpStatus.INTERNAL_SERVER_ERROR);
+            // Do not expose internal error details for server errors
+            final String error = status.is5xxServerError() ? status.getReasonPhrase() : cause.getMessage();
+            return BatchAccessResultDto.of(status.value(), null, error);
+        }
     }
 
-    private static String getLocaleSpecificCdaXSL() {
-        Locale selectedLocale = getLocaleFromContext();
-        switch (selectedLocale.getLanguage()) {
-            case ENGLISH_CODE:
-                return CDA_XSL_ENGLISH;
-            case SPANISH_CODE:
-                return CDA_XSL_SPANISH;
-            default:
-                return CDA_XSL_ENGLISH;
+    private static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier, Executor executor) {
+        try {
+            return CompletableFuture.supplyAsync(supplier, executor);
+        } catch (RejectedExecutionException e) {
+            final CompletableFuture<T> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(new ServiceUnavailableException(ServiceUnavailableException.DEFAULT_MESSAGE, e));
+            return rejected;
         }
     }
 
+    private byte[] convertSegmentedDocumentXmlToHtml (byte[] segmentedDocument, String encoding, Locale locale) {
+        return htmlRenderingExecutor.render(() -> cdaHtmlRenderer.render(segmentedDocument, encoding, locale));
+    }
+
     private static Locale getLocaleFromContext() {
         if (LocaleContextHolder.getLocale().getLanguage().isEmpty()) {
             return Locale.US;
@@ -147,17 +324,49 @@ private void assertPDPPermitDecision(XacmlResponseDto xacmlResponse) {
                 .orElseThrow(NoDocumentFoundException::new);
     }
 
+    private DSSResponse segmentDocument(DSSRequest dssRequest) {
+        try {
+            logger.debug("Invoking dss feign client - Start");
+            final DSSResponse dssResponse = dssService.segmentDocument(dssRequest);
+            logger.debug("Invoking dss feign client - End");
+            return dssResponse;
+        }
+        catch (FeignException | HystrixBadRequestException | HystrixRuntimeException e) {
+            final FeignException fe = toFeignException(e).orElseThrow(() -> unavailable("dss", e));
+            int causedByStatus = fe.status();
+            accessMetrics.recordFeignError("dss", causedByStatus);
+
+            switch (causedByStatus) {
+                case 400:
+                    logger.error("DSS client returned a 400 - BAD REQUEST status, indicating invalid document was passed" +
+                            " to DSS client", fe);
+                    throw new InvalidDocumentException("Invalid document was passed to DSS client");
+                default:
+                    logger.error("DSS client returned an unexpected instance of FeignException", fe);
+                    throw new DssClientInterfaceException("An unknown error occurred while attempting to communicate " +
+                            "with" +
+                            " DSS service");
+            }
+        }
+    }
+
     private XacmlResponseDto enforcePolicy(XacmlRequestDto xacmlRequest) {
         logger.debug("Invoking context-handler feign client - Start");
+        boolean decided = false;
+        DecisionAuditRecord.Outcome failedOutcome = DecisionAuditRecord.Outcome.FAILED;
         XacmlResponseDto xacmlResponseDto;
         try {
             xacmlResponseDto = contextHandler.enforcePolicy(xacmlRequest);
+            decided = true;
         }
-        catch (FeignException fe) {
+        catch (FeignException | HystrixBadRequestException | HystrixRuntimeException e) {
+            final FeignException fe = toFeignException(e).orElseThrow(() -> unavailable("context-handler", e));
             int causedByStatus = fe.status();
+            accessMetrics.recordFeignError("context-handler", causedByStatus);
 
             switch (causedByStatus) {
                 case 404:
+                    failedOutcome = DecisionAuditRecord.Outcome.NO_CONSENT;
                     logger.info("consent not found");
                     logger.debug(fe.getMessage(), fe);
                     throw new NoDocumentFoundException();
@@ -166,9 +375,36 @@ private XacmlResponseDto enforcePolicy(XacmlRequestDto xacmlRequest) {
                     throw new PepException(fe);
             }
         }
+        finally {
+            // Decisions are audited with the outcome of each access request, calls without a decision are audited here
+            if (!decided) {
+                decisionAuditLog.record(DecisionAuditRecord.of(xacmlRequest, failedOutcome));
+            }
+        }
         logger.debug(() -> "Invoking context-handler feign client - End" + xacmlResponseDto.toString());
 
         return xacmlResponseDto;
     }
 
+    /**
+     * The feign clients run as hystrix commands, which wrap the {@link FeignException} of a failed call
+     */
+    private static Optional<FeignException> toFeignException(RuntimeException e) {
+        if (e instanceof FeignException) {
+            return Optional.of((FeignException) e);
+        }
+        return Optional.ofNullable(e.getCause())
+                .filter(FeignException.class::isInstance)
+                .map(FeignException.class::cast);
+    }
+
+    /**
+     * Creates the exception for a call that was not made or not completed because the downstream service timed out,
+     * its circuit breaker is open or its bulkhead is full
+     */
+    private ServiceUnavailableException unavailable(String serviceName, RuntimeException e) {
+        logger.error("Unable to invoke " + serviceName + " feign client", e);
+        accessMetrics.recordFeignError(serviceName, 0);
+        return new ServiceUnavailableException(serviceName + " is temporarily unavailable", e);
+    }
 }
@@ -1,6 +1,8 @@
 package gov.samhsa.c2s.pep.service.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import gov.samhsa.c2s.pep.infrastructure.dto.DSSResponse;
+import gov.samhsa.c2s.pep.infrastructure.dto.SubjectPurposeOfUse;
 import gov.samhsa.c2s.pep.infrastructure.dto.XacmlResponseDto;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -28,12 +30,27 @@ public class AccessResponseWithDocumentDto extends AccessResponseDto {
 
     private Optional<byte[]> segmentedDocumentAsHTML;
 
+    /**
+     * Handle to retrieve the HTML format of the segmented document with GET /access/html/{handle}, only present when
+     * the HTML rendering is deferred
+     */
+    private Optional<String> segmentedDocumentAsHTMLHandle;
+
+    /**
+     * The purpose of use of the access request, only kept to tag the metrics of rendering the HTML after the response
+     */
+    @JsonIgnore
+    private SubjectPurposeOfUse purposeOfUse;
+
     @Builder
-    public AccessResponseWithDocumentDto(String decision, byte[] segmentedDocument, String segmentedDocumentEncoding, Optional<byte[]> segmentedDocumentAsHTML) {
+    public AccessResponseWithDocumentDto(String decision, byte[] segmentedDocument, String segmentedDocumentEncoding, Optional<byte[]> segmentedDocumentAsHTML,
+                                         Optional<String> segmentedDocumentAsHTMLHandle, SubjectPurposeOfUse purposeOfUse) {
         this.decision = decision;
         this.segmentedDocument = segmentedDocument;
         this.segmentedDocumentEncoding = segmentedDocumentEncoding;
         this.segmentedDocumentAsHTML = segmentedDocumentAsHTML;
+        this.segmentedDocumentAsHTMLHandle = segmentedDocumentAsHTMLHandle;
+        this.purposeOfUse = purposeOfUse;
     }
 
     public static AccessResponseDto from(DSSResponse dssResponse) {
@@ -0,0 +1,27 @@
+package gov.samhsa.c2s.pep.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.Singular;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchAccessRequestDto {
+    public static final int MAX_ACCESS_REQUESTS = 500;
+
+    @NotNull
+    @Valid
+    @Size(min = 1, max = MAX_ACCESS_REQUESTS)
+    @Singular
+    private List<AccessRequestDto> accessRequests = new ArrayList<>();
+}
@@ -0,0 +1,19 @@
+package gov.samhsa.c2s.pep.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor(staticName = "of")
+public class BatchAccessResponseDto {
+
+    /**
+     * The results in the order of the batch access requests
+     */
+    private List<BatchAccessResultDto> results = new ArrayList<>();
+}
@@ -0,0 +1,26 @@
+package gov.samhsa.c2s.pep.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor(staticName = "of")
+public class BatchAccessResultDto {
+
+    /**
+     * The HTTP status the access request would have been answered with on its own
+     */
+    private int status;
+
+    /**
+     * The access response, only present when the access request succeeded
+     */
+    private AccessResponseDto response;
+
+    /**
+     * The error message, only present when the access request failed
+     */
+    private String error;
+}
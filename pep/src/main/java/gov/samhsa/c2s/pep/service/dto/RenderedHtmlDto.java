@@ -0,0 +1,25 @@
+package gov.samhsa.c2s.pep.service.dto;
+
+import gov.samhsa.c2s.pep.infrastructure.dto.SubjectPurposeOfUse;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor(staticName = "of")
+@ToString(exclude = "html")
+public class RenderedHtmlDto {
+
+    private byte[] html;
+
+    /**
+     * The encoding of the HTML, which is the encoding of the segmented document
+     */
+    private String encoding;
+
+    private SubjectPurposeOfUse purposeOfUse;
+
+    private String decision;
+}
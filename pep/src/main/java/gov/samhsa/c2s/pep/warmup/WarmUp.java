@@ -0,0 +1,260 @@
+package gov.samhsa.c2s.pep.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.appinfo.ApplicationInfoManager;
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.loadbalancer.Server;
+import gov.samhsa.c2s.common.log.Logger;
+import gov.samhsa.c2s.common.log.LoggerFactory;
+import gov.samhsa.c2s.pep.infrastructure.ContextHandlerService;
+import gov.samhsa.c2s.pep.infrastructure.DssService;
+import gov.samhsa.c2s.pep.infrastructure.dto.DSSRequest;
+import gov.samhsa.c2s.pep.infrastructure.dto.DSSResponse;
+import gov.samhsa.c2s.pep.infrastructure.dto.PatientIdDto;
+import gov.samhsa.c2s.pep.infrastructure.dto.SubjectPurposeOfUse;
+import gov.samhsa.c2s.pep.infrastructure.dto.XacmlRequestDto;
+import gov.samhsa.c2s.pep.infrastructure.dto.XacmlResponseDto;
+import gov.samhsa.c2s.pep.infrastructure.dto.XacmlResult;
+import gov.samhsa.c2s.pep.infrastructure.feign.PooledHttpClients;
+import gov.samhsa.c2s.pep.service.CdaDocumentValidator;
+import gov.samhsa.c2s.pep.service.CdaHtmlRenderer;
+import gov.samhsa.c2s.pep.service.dto.AccessRequestDto;
+import gov.samhsa.c2s.pep.service.dto.AccessResponseWithDocumentDto;
+import gov.samhsa.c2s.pep.service.exception.PepException;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.util.EntityUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.netflix.ribbon.SpringClientFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warms up a freshly started instance before it takes traffic: it binds the /access, context-handler and DSS payloads
+ * to and from JSON, validates and renders a synthetic CDA document with each CDA stylesheet and opens the pooled
+ * connections to context-handler and DSS, so that the first requests do not pay for class loading, stylesheet
+ * initialization and cold JIT.
+ * <p>
+ * The instance registers with Eureka as STARTING (see eureka.instance.initial-status) and is set UP when the warm-up
+ * completes or times out. Until then this indicator reports OUT_OF_SERVICE on /health. Warm-up failures are logged and
+ * do not keep the instance out of service.
+ */
+public class WarmUp implements ApplicationListener<ApplicationReadyEvent>, HealthIndicator {
+
+    private static final String SYNTHETIC_DOCUMENT = "warm-up/synthetic-cda.xml";
+    private static final List<Locale> LOCALES = Arrays.asList(Locale.ENGLISH, new Locale("es"));
+    private static final List<String> DOWNSTREAM_SERVICES = Arrays.asList("context-handler", "dss");
+    private static final int CONNECT_TIMEOUT_IN_MILLIS = 2000;
+    private static final int READ_TIMEOUT_IN_MILLIS = 5000;
+
+    private final Logger logger = LoggerFactory.getLogger(WarmUp.class);
+
+    private final WarmUpProperties warmUpProperties;
+
+    private final ObjectMapper objectMapper;
+
+    private final CdaDocumentValidator cdaDocumentValidator;
+
+    private final CdaHtmlRenderer cdaHtmlRenderer;
+
+    private final PooledHttpClients pooledHttpClients;
+
+    private final SpringClientFactory springClientFactory;
+
+    private final ContextHandlerService contextHandlerClient;
+
+    private final DssService dssClient;
+
+    private final ObjectProvider<ApplicationInfoManager> applicationInfoManager;
+
+    private volatile boolean completed;
+
+    private volatile long durationInMillis;
+
+    public WarmUp(WarmUpProperties warmUpProperties,
+                  ObjectMapper objectMapper,
+                  CdaDocumentValidator cdaDocumentValidator,
+                  CdaHtmlRenderer cdaHtmlRenderer,
+                  PooledHttpClients pooledHttpClients,
+                  SpringClientFactory springClientFactory,
+                  ContextHandlerService contextHandlerClient,
+                  DssService dssClient,
+                  ObjectProvider<ApplicationInfoManager> applicationInfoManager) {
+        this.warmUpProperties = warmUpProperties;
+        this.objectMapper = objectMapper;
+        this.cdaDocumentValidator = cdaDocumentValidator;
+        this.cdaHtmlRenderer = cdaHtmlRenderer;
+        this.pooledHttpClients = pooledHttpClients;
+        this.springClientFactory = springClientFactory;
+        this.contextHandlerClient = contextHandlerClient;
+        this.dssClient = dssClient;
+        this.applicationInfoManager = applicationInfoManager;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (!warmUpProperties.isEnabled()) {
+            markUp();
+            return;
+        }
+        final Thread warmUpThread = new Thread(this::warmUp, "warm-up");
+        warmUpThread.setDaemon(true);
+        warmUpThread.start();
+    }
+
+    @Override
+    public Health health() {
+        return completed ?
+                Health.up().withDetail("durationInMillis", durationInMillis).build() :
+                Health.outOfService().withDetail("reason", "Warm-up in progress").build();
+    }
+
+    private void warmUp() {
+        final long start = System.nanoTime();
+        final long deadline = start + TimeUnit.SECONDS.toNanos(warmUpProperties.getTimeoutInSeconds());
+        logger.info("Starting warm-up with " + warmUpProperties.getIterations() + " iterations");
+        try {
+            final byte[] document = loadSyntheticDocument();
+            final CompletableFuture<Void> connections = CompletableFuture.runAsync(this::openConnections);
+            for (int i = 0; i < warmUpProperties.getIterations() && System.nanoTime() < deadline; i++) {
+                bindJson(document);
+                cdaDocumentValidator.validate(document, StandardCharsets.UTF_8.name());
+                LOCALES.forEach(locale -> cdaHtmlRenderer.render(document, StandardCharsets.UTF_8.name(), locale));
+            }
+            if (warmUpProperties.isFeignCallsEnabled()) {
+                callFeignClients(document);
+            }
+            connections.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("Warm-up failed, the instance is set up without completing it", e);
+        } finally {
+            durationInMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            markUp();
+            logger.info("Warm-up completed in " + durationInMillis + " ms");
+        }
+    }
+
+    private void markUp() {
+        completed = true;
+        Optional.ofNullable(applicationInfoManager.getIfAvailable())
+                .ifPresent(manager -> manager.setInstanceStatus(InstanceInfo.InstanceStatus.UP));
+    }
+
+    private void bindJson(byte[] document) throws IOException {
+        final XacmlRequestDto xacmlRequest = syntheticXacmlRequest();
+        final AccessRequestDto accessRequest = AccessRequestDto.builder()
+                .xacmlRequest(xacmlRequest)
+                .document(Optional.of(document))
+                .documentEncoding(Optional.of(StandardCharsets.UTF_8.name()))
+                .build();
+        roundTrip(accessRequest, AccessRequestDto.class);
+        final XacmlResponseDto xacmlResponse = roundTrip(syntheticXacmlResponse(), XacmlResponseDto.class);
+        roundTrip(accessRequest.toDSSRequest(XacmlResult.from(xacmlRequest, xacmlResponse)), DSSRequest.class);
+        roundTrip(DSSResponse.builder().segmentedDocument(document).encoding(StandardCharsets.UTF_8.name()).build(), DSSResponse.class);
+        objectMapper.writeValueAsBytes(AccessResponseWithDocumentDto.builder()
+                .decision(xacmlResponse.getPdpDecision())
+                .segmentedDocument(document)
+                .segmentedDocumentEncoding(StandardCharsets.UTF_8.name())
+                .segmentedDocumentAsHTML(Optional.of(document))
+                .build());
+    }
+
+    private <T> T roundTrip(T value, Class<T> type) throws IOException {
+        return objectMapper.readValue(objectMapper.writeValueAsBytes(value), type);
+    }
+
+    private void openConnections() {
+        if (warmUpProperties.getConnectionsPerInstance() == 0) {
+            return;
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(warmUpProperties.getConnectionsPerInstance());
+        try {
+            final List<CompletableFuture<Void>> requests = new ArrayList<>();
+            for (String serviceName : DOWNSTREAM_SERVICES) {
+                for (Server server : springClientFactory.getLoadBalancer(serviceName).getReachableServers()) {
+                    // Concurrent requests to the same instance each hold a connection, which stays pooled afterwards
+                    for (int i = 0; i < warmUpProperties.getConnectionsPerInstance(); i++) {
+                        requests.add(CompletableFuture.runAsync(() -> openConnection(serviceName, server), executor));
+                    }
+                }
+            }
+            CompletableFuture.allOf(requests.toArray(new CompletableFuture[requests.size()])).join();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void openConnection(String serviceName, Server server) {
+        final HttpGet request = new HttpGet("http://" + server.getHostPort() + warmUpProperties.getConnectionPath());
+        request.setConfig(RequestConfig.custom()
+                .setConnectTimeout(CONNECT_TIMEOUT_IN_MILLIS)
+                .setSocketTimeout(READ_TIMEOUT_IN_MILLIS)
+                .build());
+        try {
+            final HttpResponse response = pooledHttpClients.get(serviceName).execute(request);
+            // Consuming the response returns the connection to the pool
+            EntityUtils.consume(response.getEntity());
+        } catch (IOException e) {
+            logger.info("Unable to open a connection to " + serviceName + " at " + server.getHostPort() + ": " + e.getMessage());
+        }
+    }
+
+    private void callFeignClients(byte[] document) {
+        final XacmlRequestDto xacmlRequest = syntheticXacmlRequest();
+        try {
+            contextHandlerClient.enforcePolicy(xacmlRequest);
+        } catch (RuntimeException e) {
+            logger.debug(() -> "Warm-up call to context-handler failed as expected: " + e.getMessage());
+        }
+        try {
+            dssClient.segmentDocument(DSSRequest.builder()
+                    .xacmlResult(XacmlResult.from(xacmlRequest, syntheticXacmlResponse()))
+                    .document(document)
+                    .documentEncoding(StandardCharsets.UTF_8.name())
+                    .build());
+        } catch (RuntimeException e) {
+            logger.debug(() -> "Warm-up call to DSS failed as expected: " + e.getMessage());
+        }
+    }
+
+    private static XacmlRequestDto syntheticXacmlRequest() {
+        return XacmlRequestDto.builder()
+                .recipientNpi("1111111111")
+                .intermediaryNpi("2222222222")
+                .purposeOfUse(SubjectPurposeOfUse.HEALTHCARE_TREATMENT)
+                .patientId(PatientIdDto.builder().root("2.16.840.1.113883.4.357").extension("WARMUP0000000001").build())
+                .build();
+    }
+
+    private static XacmlResponseDto syntheticXacmlResponse() {
+        return XacmlResponseDto.builder().pdpDecision("DENY").build();
+    }
+
+    private static byte[] loadSyntheticDocument() throws IOException {
+        try (InputStream document = WarmUp.class.getClassLoader().getResourceAsStream(SYNTHETIC_DOCUMENT)) {
+            if (document == null) {
+                throw new PepException("Warm-up document cannot be found in classpath: " + SYNTHETIC_DOCUMENT);
+            }
+            return StreamUtils.copyToByteArray(document);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package gov.samhsa.c2s.pep.warmup;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import javax.validation.constraints.Min;
+
+@Data
+@ConfigurationProperties(prefix = "c2s.pep.warm-up")
+public class WarmUpProperties {
+
+    /**
+     * Exercises the request processing with synthetic payloads after startup, before the instance reports UP
+     */
+    private boolean enabled = true;
+
+    /**
+     * Number of times the JSON binding, document validation and HTML rendering are exercised
+     */
+    @Min(1)
+    private int iterations = 50;
+
+    /**
+     * Number of pooled connections opened to each instance of context-handler and DSS
+     */
+    @Min(0)
+    private int connectionsPerInstance = 4;
+
+    /**
+     * Path requested on each downstream instance to open the pooled connections
+     */
+    private String connectionPath = "/health";
+
+    /**
+     * Also calls context-handler and DSS through the feign clients with a synthetic patient. The calls are denied or
+     * fail, but they initialize the feign, hystrix and ribbon paths. Disabled by default because the downstream
+     * services may audit the calls.
+     */
+    private boolean feignCallsEnabled = false;
+
+    /**
+     * Maximum duration in seconds of the warm-up, the instance reports UP when it is exceeded
+     */
+    @Min(1)
+    private int timeoutInSeconds = 120;
+}
@@ -1,31 +1,179 @@
 package gov.samhsa.c2s.pep.web;
 
+import gov.samhsa.c2s.pep.config.AsyncAccessProperties;
+import gov.samhsa.c2s.pep.infrastructure.dto.XacmlRequestDto;
+import gov.samhsa.c2s.pep.service.AccessMetrics;
 import gov.samhsa.c2s.pep.service.PolicyEnforcementPointService;
 import gov.samhsa.c2s.pep.service.dto.AccessRequestDto;
 import gov.samhsa.c2s.pep.service.dto.AccessResponseDto;
+import gov.samhsa.c2s.pep.service.dto.AccessResponseWithDocumentDto;
+import gov.samhsa.c2s.pep.service.dto.BatchAccessRequestDto;
+import gov.samhsa.c2s.pep.service.dto.BatchAccessResponseDto;
+import gov.samhsa.c2s.pep.service.dto.RenderedHtmlDto;
+import gov.samhsa.c2s.pep.service.exception.DocumentNotFoundException;
+import gov.samhsa.c2s.pep.service.exception.InvalidDocumentException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.concurrent.CompletionException;
 
 @RestController
 public class PolicyEnforcementPointRestController {
 
+    public static final String PDP_DECISION_HEADER = "X-PDP-Decision";
+    private static final String XACML_REQUEST_PART = "xacmlRequest";
+    private static final String DOCUMENT_PART = "document";
+
     private final PolicyEnforcementPointService policyEnforcementPointService;
 
+    private final AsyncAccessProperties asyncAccessProperties;
+
+    private final AccessMetrics accessMetrics;
+
     @Autowired
-    public PolicyEnforcementPointRestController(PolicyEnforcementPointService policyEnforcementPointService) {
+    public PolicyEnforcementPointRestController(PolicyEnforcementPointService policyEnforcementPointService, AsyncAccessProperties asyncAccessProperties,
+                                                AccessMetrics accessMetrics) {
         this.policyEnforcementPointService = policyEnforcementPointService;
+        this.asyncAccessProperties = asyncAccessProperties;
+        this.accessMetrics = accessMetrics;
     }
 
     @RequestMapping(value = "/access", method = RequestMethod.POST)
     public AccessResponseDto access(@Valid @RequestBody AccessRequestDto accessRequest,
-                                    @RequestParam Optional<Boolean> getSegmentedDocumentAsHTML) {
+                                    @RequestParam Optional<Boolean> getSegmentedDocumentAsHTML,
+                                    @RequestParam Optional<Boolean> deferSegmentedDocumentAsHTML) {
+        if (deferSegmentedDocumentAsHTML.orElse(Boolean.FALSE)) {
+            return policyEnforcementPointService.accessDocumentWithDeferredHtml(accessRequest);
+        }
         return policyEnforcementPointService.accessDocument(accessRequest, getSegmentedDocumentAsHTML);
     }
+
+    /**
+     * Renders the HTML of a segmented document returned by /access with {@code deferSegmentedDocumentAsHTML=true}
+     */
+    @RequestMapping(value = "/access/html/{handle}", method = RequestMethod.GET, produces = MediaType.TEXT_HTML_VALUE)
+    public ResponseEntity<byte[]> getSegmentedDocumentAsHtml(@PathVariable String handle) {
+        final RenderedHtmlDto renderedHtml = policyEnforcementPointService.getSegmentedDocumentAsHtml(handle);
+        final Charset encoding = StringUtils.hasText(renderedHtml.getEncoding()) ? Charset.forName(renderedHtml.getEncoding()) : StandardCharsets.UTF_8;
+        return ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_HTML.getType(), MediaType.TEXT_HTML.getSubtype(), encoding))
+                .body(renderedHtml.getHtml());
+    }
+
+    /**
+     * Variant of /access that receives the document as a raw binary part instead of base64 encoded JSON. Parts above
+     * the configured multipart file size threshold are spooled to disk while they are received, which avoids the base64
+     * decoding and the intermediate buffers of the JSON binding. The document is then read once into a byte array,
+     * because it is validated and sent to DSS as a byte array, so the multipart size limits are sized to the memory
+     * budget (c2s.pep.memory-budget).
+     */
+    @RequestMapping(value = "/access", method = RequestMethod.POST, consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public AccessResponseDto accessMultipart(@Valid @RequestPart(XACML_REQUEST_PART) XacmlRequestDto xacmlRequest,
+                                             @RequestPart(DOCUMENT_PART) MultipartFile document,
+                                             @RequestParam Optional<String> documentEncoding,
+                                             @RequestParam Optional<Boolean> getSegmentedDocumentAsHTML) throws IOException {
+        if (document.isEmpty()) {
+            throw new InvalidDocumentException("The document part must not be empty");
+        }
+        final AccessRequestDto accessRequest = AccessRequestDto.builder()
+                .xacmlRequest(xacmlRequest)
+                .document(Optional.of(document.getBytes()))
+                .documentEncoding(documentEncoding)
+                .build();
+        return policyEnforcementPointService.accessDocument(accessRequest, getSegmentedDocumentAsHTML);
+    }
+
+    @RequestMapping(value = "/access/async", method = RequestMethod.POST)
+    public DeferredResult<AccessResponseDto> accessAsync(@Valid @RequestBody AccessRequestDto accessRequest,
+                                                         @RequestParam Optional<Boolean> getSegmentedDocumentAsHTML) {
+        final DeferredResult<AccessResponseDto> deferredResult = new DeferredResult<>(asyncAccessProperties.getTimeoutInMillis());
+        policyEnforcementPointService.accessDocumentAsync(accessRequest, getSegmentedDocumentAsHTML)
+                .whenComplete((accessResponse, e) -> {
+                    if (e == null) {
+                        deferredResult.setResult(accessResponse);
+                    } else {
+                        deferredResult.setErrorResult(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                    }
+                });
+        return deferredResult;
+    }
+
+    @RequestMapping(value = "/access/batch", method = RequestMethod.POST)
+    public BatchAccessResponseDto accessBatch(@Valid @RequestBody BatchAccessRequestDto batchAccessRequest,
+                                              @RequestParam Optional<Boolean> getSegmentedDocumentAsHTML) {
+        return policyEnforcementPointService.accessDocuments(batchAccessRequest.getAccessRequests(), getSegmentedDocumentAsHTML);
+    }
+
+    /**
+     * Streams the segmented document as the raw response body in the representation requested with the
+     * {@code Accept} header, with the PDP decision in the {@value #PDP_DECISION_HEADER} header.
+     */
+    @RequestMapping(value = "/access", method = RequestMethod.POST, produces = {MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_HTML_VALUE})
+    public ResponseEntity<StreamingResponseBody> accessAsSegmentedDocument(@Valid @RequestBody AccessRequestDto accessRequest,
+                                                                           @RequestHeader(HttpHeaders.ACCEPT) String accept,
+                                                                           Locale locale) {
+        return segmentedDocument(accessRequest, isHtmlPreferred(accept), locale);
+    }
+
+    @RequestMapping(value = "/access/html", method = RequestMethod.POST, produces = MediaType.TEXT_HTML_VALUE)
+    public ResponseEntity<StreamingResponseBody> accessAsHtml(@Valid @RequestBody AccessRequestDto accessRequest, Locale locale) {
+        return segmentedDocument(accessRequest, true, locale);
+    }
+
+    private ResponseEntity<StreamingResponseBody> segmentedDocument(AccessRequestDto accessRequest, boolean asHtml, Locale locale) {
+        final AccessResponseDto accessResponse = policyEnforcementPointService.accessDocument(accessRequest, Optional.of(Boolean.FALSE));
+        if (!(accessResponse instanceof AccessResponseWithDocumentDto)) {
+            throw new DocumentNotFoundException("A document is required to return the segmented document");
+        }
+        final AccessResponseWithDocumentDto accessResponseWithDocument = (AccessResponseWithDocumentDto) accessResponse;
+        final Charset encoding = StringUtils.hasText(accessResponseWithDocument.getSegmentedDocumentEncoding()) ?
+                Charset.forName(accessResponseWithDocument.getSegmentedDocumentEncoding()) : StandardCharsets.UTF_8;
+        final StreamingResponseBody body = asHtml ?
+                output -> policyEnforcementPointService.writeSegmentedDocumentAsHtml(accessResponseWithDocument, locale, output) :
+                output -> writeSegmentedDocument(accessRequest, accessResponseWithDocument, output);
+        final MediaType mediaType = asHtml ? MediaType.TEXT_HTML : MediaType.APPLICATION_XML;
+        return ResponseEntity.ok()
+                .header(PDP_DECISION_HEADER, accessResponseWithDocument.getDecision())
+                .contentType(new MediaType(mediaType.getType(), mediaType.getSubtype(), encoding))
+                .body(body);
+    }
+
+    private void writeSegmentedDocument(AccessRequestDto accessRequest, AccessResponseWithDocumentDto accessResponse, OutputStream output) throws IOException {
+        final long start = System.nanoTime();
+        output.write(accessResponse.getSegmentedDocument());
+        accessMetrics.recordStage(AccessMetrics.Stage.SERIALIZATION, accessRequest.getXacmlRequest().getPurposeOfUse(), accessResponse.getDecision(),
+                accessResponse.getSegmentedDocument().length, System.nanoTime() - start);
+    }
+
+    private static boolean isHtmlPreferred(String accept) {
+        final List<MediaType> acceptedMediaTypes = MediaType.parseMediaTypes(accept);
+        MediaType.sortBySpecificityAndQuality(acceptedMediaTypes);
+        return acceptedMediaTypes.stream()
+                .filter(mediaType -> MediaType.TEXT_HTML.includes(mediaType) || MediaType.APPLICATION_XML.includes(mediaType))
+                .findFirst()
+                .map(MediaType.TEXT_HTML::includes)
+                .orElse(false);
+    }
 }
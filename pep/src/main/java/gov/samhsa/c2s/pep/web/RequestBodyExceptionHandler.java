@@ -0,0 +1,32 @@
+package gov.samhsa.c2s.pep.web;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Request bodies are read by the message converters, which wrap the exceptions thrown by the request input stream
+ * into {@link HttpMessageNotReadableException}. Responds with the status of the first cause annotated with
+ * {@link ResponseStatus}, such as a body exceeding a size limit, and with 400 otherwise.
+ */
+@ControllerAdvice
+public class RequestBodyExceptionHandler {
+
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public void handleHttpMessageNotReadable(HttpMessageNotReadableException e, HttpServletResponse response) throws IOException {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            final ResponseStatus responseStatus = AnnotatedElementUtils.findMergedAnnotation(cause.getClass(), ResponseStatus.class);
+            if (responseStatus != null) {
+                response.sendError(responseStatus.code().value(), cause.getMessage());
+                return;
+            }
+        }
+        response.sendError(HttpStatus.BAD_REQUEST.value());
+    }
+}
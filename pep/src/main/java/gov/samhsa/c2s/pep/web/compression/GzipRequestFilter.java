@@ -0,0 +1,213 @@
+package gov.samhsa.c2s.pep.web.compression;
+
+import gov.samhsa.c2s.pep.service.exception.PayloadTooLargeException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Decompresses request bodies sent with {@code Content-Encoding: gzip}, so that clients can upload large documents
+ * compressed. The body is decompressed while it is read, without buffering it, and rejected with 413 as soon as its
+ * decompressed size exceeds the maximum, so that a small compressed body cannot expand into the heap without limit.
+ * Non-blocking reads buffer the compressed body, bounded by the same maximum, before decompressing it.
+ * Multipart requests are parsed by the servlet container from the raw request and are therefore not supported
+ * compressed.
+ */
+public class GzipRequestFilter extends OncePerRequestFilter {
+
+    private static final String GZIP = "gzip";
+
+    private final long maxDecompressedSizeInBytes;
+
+    public GzipRequestFilter(long maxDecompressedSizeInBytes) {
+        this.maxDecompressedSizeInBytes = maxDecompressedSizeInBytes;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        final String contentType = request.getContentType();
+        return !GZIP.equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING)) ||
+                (contentType != null && contentType.toLowerCase().startsWith(MediaType.MULTIPART_FORM_DATA_VALUE));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        filterChain.doFilter(new GzipHttpServletRequest(request, maxDecompressedSizeInBytes), response);
+    }
+
+    private static class GzipHttpServletRequest extends HttpServletRequestWrapper {
+
+        private final long maxDecompressedSizeInBytes;
+
+        private ServletInputStream inputStream;
+
+        private GzipHttpServletRequest(HttpServletRequest request, long maxDecompressedSizeInBytes) {
+            super(request);
+            this.maxDecompressedSizeInBytes = maxDecompressedSizeInBytes;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                inputStream = new GzipServletInputStream(super.getInputStream(), maxDecompressedSizeInBytes);
+            }
+            return inputStream;
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return isRemovedHeader(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return isRemovedHeader(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        private static boolean isRemovedHeader(String name) {
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+        }
+    }
+
+    /**
+     * Decompresses the body while it is read. Blocking reads decompress straight from the request. Once a
+     * {@link ReadListener} is set, the compressed body is buffered as the container makes it available, at most up to the
+     * decompressed maximum, and decompressed from the buffer after all of it was read, so that reads never block.
+     */
+    private static class GzipServletInputStream extends ServletInputStream {
+
+        private static final int CHUNK_SIZE_IN_BYTES = 8192;
+
+        private final ServletInputStream compressed;
+
+        private final long maxDecompressedSizeInBytes;
+
+        private InputStream decompressed;
+
+        private ByteArrayOutputStream buffered;
+
+        private long decompressedSizeInBytes;
+
+        private volatile boolean finished;
+
+        private GzipServletInputStream(ServletInputStream compressed, long maxDecompressedSizeInBytes) {
+            this.compressed = compressed;
+            this.maxDecompressedSizeInBytes = maxDecompressedSizeInBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = decompressed().read();
+            finished = b == -1;
+            if (!finished) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            final int read = decompressed().read(b, off, len);
+            finished = read == -1;
+            if (!finished) {
+                count(read);
+            }
+            return read;
+        }
+
+        private InputStream decompressed() throws IOException {
+            if (decompressed == null) {
+                if (buffered != null) {
+                    throw new IllegalStateException("The compressed request body is not completely read yet, isReady() returned false");
+                }
+                decompressed = new GZIPInputStream(compressed);
+            }
+            return decompressed;
+        }
+
+        private void count(int bytes) {
+            decompressedSizeInBytes += bytes;
+            if (decompressedSizeInBytes > maxDecompressedSizeInBytes) {
+                throw new PayloadTooLargeException("The decompressed request body exceeds " + maxDecompressedSizeInBytes + " bytes");
+            }
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return buffered == null ? compressed.isReady() : decompressed != null;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            buffered = new ByteArrayOutputStream();
+            compressed.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    final byte[] chunk = new byte[CHUNK_SIZE_IN_BYTES];
+                    while (compressed.isReady() && !compressed.isFinished()) {
+                        final int read = compressed.read(chunk);
+                        if (read == -1) {
+                            break;
+                        }
+                        buffered.write(chunk, 0, read);
+                        // A gzip body never compresses to much more than its decompressed size
+                        if (buffered.size() > maxDecompressedSizeInBytes) {
+                            throw new PayloadTooLargeException("The compressed request body exceeds " + maxDecompressedSizeInBytes + " bytes");
+                        }
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() throws IOException {
+                    decompressed = new GZIPInputStream(new ByteArrayInputStream(buffered.toByteArray()));
+                    readListener.onDataAvailable();
+                    readListener.onAllDataRead();
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    readListener.onError(t);
+                }
+            });
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (decompressed != null) {
+                decompressed.close();
+            } else {
+                compressed.close();
+            }
+        }
+    }
+}
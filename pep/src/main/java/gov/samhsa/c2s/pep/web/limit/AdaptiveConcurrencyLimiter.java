@@ -0,0 +1,221 @@
+package gov.samhsa.c2s.pep.web.limit;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the number of concurrent requests with a limit that follows the observed latency. The latency of completed
+ * requests is averaged over windows, and at the end of each window the limit is adjusted by the gradient between a
+ * long-term latency baseline and the latency of the window:
+ * {@code limit = limit * min(1, tolerance * baseline / windowLatency) + sqrt(limit)}, smoothed. Latency that rises
+ * above the baseline because requests queue shrinks the limit, while latency that is high but stable, such as the DSS
+ * latency of large documents, becomes the baseline and does not. A window with failed requests decreases the limit once
+ * by the backoff ratio. The limit only grows while at least half of it is in use.
+ */
+public class AdaptiveConcurrencyLimiter implements PublicMetrics {
+
+    private static final String METRIC_PREFIX = "pep.concurrency-limit.";
+
+    /**
+     * Weight of each window in the long-term latency baseline, which spans about twenty windows
+     */
+    private static final double BASELINE_SMOOTHING = 0.05;
+
+    /**
+     * Lower bound of the gradient, so that the limit at most halves in a window
+     */
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final String name;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double backoffRatio;
+
+    private final double latencyTolerance;
+
+    private final double smoothing;
+
+    private final long windowInNanos;
+
+    private final int minWindowSamples;
+
+    private final LongSupplier nanoTime;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final AtomicLong decreased = new AtomicLong();
+
+    private volatile double limit;
+
+    private double baselineLatencyInNanos;
+
+    private long windowStartNanos;
+
+    private int windowSamples;
+
+    private long windowLatencySumInNanos;
+
+    private int windowMaxInFlight;
+
+    private boolean windowDropped;
+
+    public AdaptiveConcurrencyLimiter(String name, ConcurrencyLimitProperties concurrencyLimitProperties) {
+        this(name, concurrencyLimitProperties, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(String name, ConcurrencyLimitProperties concurrencyLimitProperties, LongSupplier nanoTime) {
+        this.name = name;
+        this.minLimit = concurrencyLimitProperties.getMinLimit();
+        this.maxLimit = Math.max(minLimit, concurrencyLimitProperties.getMaxLimit());
+        this.backoffRatio = concurrencyLimitProperties.getBackoffRatio();
+        this.latencyTolerance = concurrencyLimitProperties.getLatencyTolerance();
+        this.smoothing = concurrencyLimitProperties.getSmoothing();
+        this.windowInNanos = TimeUnit.MILLISECONDS.toNanos(concurrencyLimitProperties.getWindowInMillis());
+        this.minWindowSamples = concurrencyLimitProperties.getMinWindowSamples();
+        this.nanoTime = nanoTime;
+        this.limit = Math.min(maxLimit, Math.max(minLimit, concurrencyLimitProperties.getInitialLimit()));
+        this.windowStartNanos = nanoTime.getAsLong();
+    }
+
+    /**
+     * Admits a request if the number of in-flight requests is below the current limit.
+     *
+     * @return the permit of the admitted request, which must be completed exactly once, or an empty optional if the
+     * request is rejected
+     */
+    public Optional<Permit> tryAcquire() {
+        while (true) {
+            final int current = inFlight.get();
+            if (current >= getLimit()) {
+                rejected.incrementAndGet();
+                return Optional.empty();
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return Optional.of(new Permit(current + 1, nanoTime.getAsLong()));
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        final String prefix = METRIC_PREFIX + name + ".";
+        final List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>(prefix + "limit", getLimit()));
+        metrics.add(new Metric<>(prefix + "in-flight", inFlight.get()));
+        metrics.add(new Metric<>(prefix + "rejected", rejected.get()));
+        metrics.add(new Metric<>(prefix + "decreased", decreased.get()));
+        return Collections.unmodifiableList(metrics);
+    }
+
+    private synchronized void onSample(int inFlightAtStart, long latencyInNanos, boolean dropped) {
+        windowSamples++;
+        windowLatencySumInNanos += latencyInNanos;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtStart);
+        windowDropped |= dropped;
+        final long now = nanoTime.getAsLong();
+        if (now - windowStartNanos < windowInNanos || (windowSamples < minWindowSamples && !windowDropped)) {
+            return;
+        }
+        final double windowLatencyInNanos = Math.max(1, (double) windowLatencySumInNanos / windowSamples);
+        if (windowDropped) {
+            // At most one decrease per window, however many requests of the window failed
+            limit = Math.max(minLimit, limit * backoffRatio);
+            decreased.incrementAndGet();
+        } else {
+            updateBaseline(windowLatencyInNanos);
+            final double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, latencyTolerance * baselineLatencyInNanos / windowLatencyInNanos));
+            // Only grow the limit while it is actually being used
+            if (gradient < 1.0 || windowMaxInFlight * 2 >= limit) {
+                final double newLimit = limit * gradient + Math.sqrt(limit);
+                final double smoothedLimit = Math.min(maxLimit, Math.max(minLimit, limit * (1 - smoothing) + newLimit * smoothing));
+                if (smoothedLimit < limit) {
+                    decreased.incrementAndGet();
+                }
+                limit = smoothedLimit;
+            }
+        }
+        windowStartNanos = now;
+        windowSamples = 0;
+        windowLatencySumInNanos = 0;
+        windowMaxInFlight = 0;
+        windowDropped = false;
+    }
+
+    private void updateBaseline(double windowLatencyInNanos) {
+        if (baselineLatencyInNanos == 0) {
+            baselineLatencyInNanos = windowLatencyInNanos;
+        } else if (baselineLatencyInNanos > 2 * windowLatencyInNanos) {
+            // Latency returned to normal after an overload, follow it down faster than the smoothing would
+            baselineLatencyInNanos = Math.max(windowLatencyInNanos, baselineLatencyInNanos * 0.95);
+        } else {
+            baselineLatencyInNanos = baselineLatencyInNanos * (1 - BASELINE_SMOOTHING) + windowLatencyInNanos * BASELINE_SMOOTHING;
+        }
+    }
+
+    public class Permit {
+
+        private final int inFlightAtStart;
+
+        private final long startNanos;
+
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        private Permit(int inFlightAtStart, long startNanos) {
+            this.inFlightAtStart = inFlightAtStart;
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * Releases the permit of a request that completed normally, its latency is used to adjust the limit
+         */
+        public void onSuccess() {
+            complete(false);
+        }
+
+        /**
+         * Releases the permit of a request that failed or timed out, which decreases the limit at the end of the window
+         */
+        public void onDropped() {
+            complete(true);
+        }
+
+        private void complete(boolean dropped) {
+            if (completed.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                onSample(inFlightAtStart, nanoTime.getAsLong() - startNanos, dropped);
+            }
+        }
+    }
+}
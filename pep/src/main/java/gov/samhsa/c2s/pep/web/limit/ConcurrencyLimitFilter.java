@@ -0,0 +1,112 @@
+package gov.samhsa.c2s.pep.web.limit;
+
+import gov.samhsa.c2s.common.log.Logger;
+import gov.samhsa.c2s.common.log.LoggerFactory;
+import gov.samhsa.c2s.pep.service.exception.ServiceUnavailableException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Rejects requests with 503 and a Retry-After header as soon as the adaptive concurrency limit is reached, so that the
+ * admitted requests keep their latency instead of all requests queuing behind the servlet thread pool. Requests that
+ * carry a document and policy decision only requests are limited by separate limiters, so that the latency and the
+ * server errors of segmentation and rendering do not shed policy decision only requests. Requests are classified
+ * before their body is read, by its size and encoding. Asynchronous requests hold their permit until the response is
+ * completed.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final Logger logger = LoggerFactory.getLogger(ConcurrencyLimitFilter.class);
+
+    private final AdaptiveConcurrencyLimiter decisionConcurrencyLimiter;
+
+    private final AdaptiveConcurrencyLimiter documentConcurrencyLimiter;
+
+    private final long documentRequestThresholdInBytes;
+
+    private final int retryAfterInSeconds;
+
+    public ConcurrencyLimitFilter(AdaptiveConcurrencyLimiter decisionConcurrencyLimiter, AdaptiveConcurrencyLimiter documentConcurrencyLimiter,
+                                  long documentRequestThresholdInBytes, int retryAfterInSeconds) {
+        this.decisionConcurrencyLimiter = decisionConcurrencyLimiter;
+        this.documentConcurrencyLimiter = documentConcurrencyLimiter;
+        this.documentRequestThresholdInBytes = documentRequestThresholdInBytes;
+        this.retryAfterInSeconds = retryAfterInSeconds;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        final AdaptiveConcurrencyLimiter concurrencyLimiter = isDocumentRequest(request) ? documentConcurrencyLimiter : decisionConcurrencyLimiter;
+        final Optional<AdaptiveConcurrencyLimiter.Permit> permit = concurrencyLimiter.tryAcquire();
+        if (!permit.isPresent()) {
+            logger.debug(() -> "Rejecting " + request.getRequestURI() + ", " + concurrencyLimiter.getName() + " concurrency limit of " +
+                    concurrencyLimiter.getLimit() + " reached");
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterInSeconds));
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), ServiceUnavailableException.DEFAULT_MESSAGE);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            permit.get().onDropped();
+            throw e;
+        }
+        if (request.isAsyncStarted()) {
+            request.getAsyncContext().addListener(new PermitReleasingListener(permit.get()));
+        } else {
+            release(permit.get(), response.getStatus());
+        }
+    }
+
+    private boolean isDocumentRequest(HttpServletRequest request) {
+        final long contentLength = request.getContentLengthLong();
+        return contentLength < 0 || contentLength > documentRequestThresholdInBytes || request.getHeader(HttpHeaders.CONTENT_ENCODING) != null;
+    }
+
+    private static void release(AdaptiveConcurrencyLimiter.Permit permit, int status) {
+        if (status >= HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+            permit.onDropped();
+        } else {
+            permit.onSuccess();
+        }
+    }
+
+    private static class PermitReleasingListener implements AsyncListener {
+
+        private final AdaptiveConcurrencyLimiter.Permit permit;
+
+        private PermitReleasingListener(AdaptiveConcurrencyLimiter.Permit permit) {
+            this.permit = permit;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) throws IOException {
+            release(permit, ((HttpServletResponse) event.getSuppliedResponse()).getStatus());
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) throws IOException {
+            permit.onDropped();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) throws IOException {
+            permit.onDropped();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) throws IOException {
+            // The permit is kept when the asynchronous processing is restarted
+        }
+    }
+}
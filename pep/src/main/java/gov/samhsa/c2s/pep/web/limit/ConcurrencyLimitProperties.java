@@ -0,0 +1,82 @@
+package gov.samhsa.c2s.pep.web.limit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
+
+@Data
+@ConfigurationProperties(prefix = "c2s.pep.concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    /**
+     * Limits the number of concurrently processed /access requests when enabled
+     */
+    private boolean enabled = true;
+
+    /**
+     * Concurrency limit used until latency samples have been observed
+     */
+    @Min(1)
+    private int initialLimit = 20;
+
+    /**
+     * Lower bound of the concurrency limit
+     */
+    @Min(1)
+    private int minLimit = 4;
+
+    /**
+     * Upper bound of the concurrency limit
+     */
+    @Min(1)
+    private int maxLimit = 200;
+
+    /**
+     * Factor applied once per window to the limit when requests of the window failed with a server error
+     */
+    @DecimalMin("0.1")
+    @DecimalMax("0.99")
+    private double backoffRatio = 0.9;
+
+    /**
+     * Duration in milliseconds of the windows over which latency is averaged before the limit is adjusted
+     */
+    @Min(1)
+    private long windowInMillis = 1000;
+
+    /**
+     * Minimum number of completed requests in a window before the limit is adjusted
+     */
+    @Min(1)
+    private int minWindowSamples = 10;
+
+    /**
+     * Ratio of the window latency to the long-term latency baseline up to which the limit is not decreased
+     */
+    @DecimalMin("1.0")
+    private double latencyTolerance = 1.5;
+
+    /**
+     * Weight of the new limit computed at the end of a window in the limit
+     */
+    @DecimalMin("0.01")
+    @DecimalMax("1.0")
+    private double smoothing = 0.2;
+
+    /**
+     * Requests with a body above this size in bytes, with a compressed body or with a body of unknown size are
+     * assumed to carry a document and are limited separately from the policy decision only requests, so that the DSS
+     * and rendering latency and errors of documents do not shed policy decision only requests
+     */
+    @Min(0)
+    private long documentRequestThresholdInBytes = 4096;
+
+    /**
+     * Value of the Retry-After header of rejected requests
+     */
+    @Min(0)
+    private int retryAfterInSeconds = 1;
+}
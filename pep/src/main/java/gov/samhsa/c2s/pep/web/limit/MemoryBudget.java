@@ -0,0 +1,117 @@
+package gov.samhsa.c2s.pep.web.limit;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Global budget of heap bytes for the documents of in-flight requests. Requests reserve their estimated size on
+ * admission, wait in arrival order while the budget is exhausted and give their reservation back on completion.
+ * Requests whose size is only known while their body is read extend their reservation as they read it. The budget is
+ * accounted in kilobytes so that budgets above 2 GB fit in the permits of a semaphore.
+ */
+public class MemoryBudget implements PublicMetrics {
+
+    private static final String METRIC_PREFIX = "pep.memory-budget.";
+    private static final int KB = 1024;
+
+    private final int totalKb;
+
+    private final Semaphore availableKb;
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    public MemoryBudget(long maxInFlightBytes) {
+        this.totalKb = (int) Math.min(Integer.MAX_VALUE, Math.max(1, maxInFlightBytes / KB));
+        // Fair, so that large requests are not starved by a stream of small ones
+        this.availableKb = new Semaphore(totalKb, true);
+    }
+
+    /**
+     * @return true if the bytes fit in the whole budget, requests that do not fit can never be admitted
+     */
+    public boolean fits(long bytes) {
+        return toKb(bytes) <= totalKb;
+    }
+
+    /**
+     * Reserves the bytes, waiting up to the timeout for other requests to give back their reservation.
+     *
+     * @return the reservation, which must be released exactly once, or an empty optional if the bytes could not be
+     * reserved in time or do not fit in the budget
+     */
+    public Optional<Reservation> tryReserve(long bytes, long timeoutInMillis) throws InterruptedException {
+        final int kb = toKb(bytes);
+        if (kb <= totalKb && availableKb.tryAcquire(kb, timeoutInMillis, TimeUnit.MILLISECONDS)) {
+            return Optional.of(new Reservation(kb));
+        }
+        rejected.incrementAndGet();
+        return Optional.empty();
+    }
+
+    public long getInFlightBytes() {
+        return (long) (totalKb - availableKb.availablePermits()) * KB;
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        final List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>(METRIC_PREFIX + "max-in-flight-bytes", (long) totalKb * KB));
+        metrics.add(new Metric<>(METRIC_PREFIX + "in-flight-bytes", getInFlightBytes()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "waiting", availableKb.getQueueLength()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "rejected", getRejected()));
+        return metrics;
+    }
+
+    private static int toKb(long bytes) {
+        return (int) Math.min(Integer.MAX_VALUE, (Math.max(0, bytes) + KB - 1) / KB);
+    }
+
+    public class Reservation {
+
+        private int kb;
+
+        private boolean released;
+
+        private Reservation(int kb) {
+            this.kb = kb;
+        }
+
+        /**
+         * Adds the bytes to the reservation if they are available right away, without waiting.
+         *
+         * @return true if the reservation was extended
+         */
+        public synchronized boolean tryExtend(long bytes) {
+            final int extraKb = toKb(bytes);
+            if (!released && (long) kb + extraKb <= totalKb && availableKb.tryAcquire(extraKb)) {
+                kb += extraKb;
+                return true;
+            }
+            rejected.incrementAndGet();
+            return false;
+        }
+
+        public synchronized long getBytes() {
+            return (long) kb * KB;
+        }
+
+        public synchronized void release() {
+            if (!released) {
+                released = true;
+                availableKb.release(kb);
+            }
+        }
+    }
+}
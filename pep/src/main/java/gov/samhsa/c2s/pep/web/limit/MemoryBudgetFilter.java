@@ -0,0 +1,223 @@
+package gov.samhsa.c2s.pep.web.limit;
+
+import gov.samhsa.c2s.common.log.Logger;
+import gov.samhsa.c2s.common.log.LoggerFactory;
+import gov.samhsa.c2s.pep.service.exception.PayloadTooLargeException;
+import gov.samhsa.c2s.pep.service.exception.ServiceUnavailableException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Admits requests with a body only while their estimated heap use fits in the {@link MemoryBudget}. Requests wait a
+ * bounded time for budget and are then rejected with 503 and a Retry-After header, requests larger than the whole
+ * budget are rejected with 413. The body of requests without a Content-Length or with a compressed body is counted
+ * while it is read (after decompression, the filter is ordered after the {@code GzipRequestFilter}), and their
+ * reservation is extended without waiting as the body grows, failing the read with 503 when the budget is exhausted
+ * and with 413 when the body can never fit. Multipart bodies are parsed by the servlet container from the raw request
+ * and are only charged their estimate. Asynchronous requests hold their reservation until the response is completed.
+ */
+public class MemoryBudgetFilter extends OncePerRequestFilter {
+
+    private final Logger logger = LoggerFactory.getLogger(MemoryBudgetFilter.class);
+
+    private final MemoryBudget memoryBudget;
+
+    private final MemoryBudgetProperties memoryBudgetProperties;
+
+    public MemoryBudgetFilter(MemoryBudget memoryBudget, MemoryBudgetProperties memoryBudgetProperties) {
+        this.memoryBudget = memoryBudget;
+        this.memoryBudgetProperties = memoryBudgetProperties;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        final long estimatedBytes = estimateBytes(request);
+        if (!memoryBudget.fits(estimatedBytes)) {
+            logger.info("Rejecting " + request.getRequestURI() + ", estimated size of " + estimatedBytes + " bytes exceeds the memory budget");
+            response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value(), "The document is too large to be processed");
+            return;
+        }
+        final Optional<MemoryBudget.Reservation> reservation = reserve(estimatedBytes);
+        if (!reservation.isPresent()) {
+            logger.debug(() -> "Rejecting " + request.getRequestURI() + ", memory budget exhausted with " + memoryBudget.getInFlightBytes() + " bytes in flight");
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(memoryBudgetProperties.getRetryAfterInSeconds()));
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), ServiceUnavailableException.DEFAULT_MESSAGE);
+            return;
+        }
+        try {
+            filterChain.doFilter(isSizeKnown(request) ? request : new BudgetedHttpServletRequest(request, response, reservation.get()), response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReservationReleasingListener(reservation.get()));
+            } else {
+                reservation.get().release();
+            }
+        }
+    }
+
+    private long estimateBytes(HttpServletRequest request) {
+        final long contentLength = request.getContentLengthLong();
+        final long requestSize = isSizeKnown(request) ? contentLength :
+                Math.max(contentLength, memoryBudgetProperties.getUnknownRequestSizeInBytes());
+        return requestSize * memoryBudgetProperties.getRequestSizeMultiplier();
+    }
+
+    private static boolean isSizeKnown(HttpServletRequest request) {
+        // A compressed body expands to an unknown size
+        return request.getContentLengthLong() >= 0 && request.getHeader(HttpHeaders.CONTENT_ENCODING) == null;
+    }
+
+    private Optional<MemoryBudget.Reservation> reserve(long estimatedBytes) {
+        try {
+            return memoryBudget.tryReserve(estimatedBytes, memoryBudgetProperties.getMaxWaitInMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+    }
+
+    private class BudgetedHttpServletRequest extends HttpServletRequestWrapper {
+
+        private final HttpServletResponse response;
+
+        private final MemoryBudget.Reservation reservation;
+
+        private ServletInputStream inputStream;
+
+        private BudgetedHttpServletRequest(HttpServletRequest request, HttpServletResponse response, MemoryBudget.Reservation reservation) {
+            super(request);
+            this.response = response;
+            this.reservation = reservation;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                inputStream = new BudgetedServletInputStream(super.getInputStream(), response, reservation);
+            }
+            return inputStream;
+        }
+    }
+
+    private class BudgetedServletInputStream extends ServletInputStream {
+
+        private final ServletInputStream body;
+
+        private final HttpServletResponse response;
+
+        private final MemoryBudget.Reservation reservation;
+
+        private long readBytes;
+
+        private BudgetedServletInputStream(ServletInputStream body, HttpServletResponse response, MemoryBudget.Reservation reservation) {
+            this.body = body;
+            this.response = response;
+            this.reservation = reservation;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = body.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            final int read = body.read(b, off, len);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        private void count(int bytes) {
+            readBytes += bytes;
+            final long requiredBytes = readBytes * memoryBudgetProperties.getRequestSizeMultiplier();
+            final long reservedBytes = reservation.getBytes();
+            if (requiredBytes <= reservedBytes) {
+                return;
+            }
+            if (!memoryBudget.fits(requiredBytes)) {
+                throw new PayloadTooLargeException("The document is too large to be processed");
+            }
+            // Doubles the reservation, so that it is extended a logarithmic number of times
+            final long extraBytes = Math.max(requiredBytes - reservedBytes, reservedBytes);
+            if (!reservation.tryExtend(memoryBudget.fits(reservedBytes + extraBytes) ? extraBytes : requiredBytes - reservedBytes)) {
+                logger.debug(() -> "Rejecting the body of " + readBytes + " bytes read so far, memory budget exhausted with " + memoryBudget.getInFlightBytes() + " bytes in flight");
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(memoryBudgetProperties.getRetryAfterInSeconds()));
+                throw new ServiceUnavailableException();
+            }
+        }
+
+        @Override
+        public boolean isFinished() {
+            return body.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return body.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            body.setReadListener(readListener);
+        }
+
+        @Override
+        public void close() throws IOException {
+            body.close();
+        }
+    }
+
+    private static class ReservationReleasingListener implements AsyncListener {
+
+        private final MemoryBudget.Reservation reservation;
+
+        private ReservationReleasingListener(MemoryBudget.Reservation reservation) {
+            this.reservation = reservation;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) throws IOException {
+            reservation.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) throws IOException {
+            reservation.release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) throws IOException {
+            reservation.release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) throws IOException {
+            // The reservation is kept when the asynchronous processing is restarted
+        }
+    }
+}
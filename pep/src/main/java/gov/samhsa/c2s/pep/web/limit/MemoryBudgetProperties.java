@@ -0,0 +1,48 @@
+package gov.samhsa.c2s.pep.web.limit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import javax.validation.constraints.Min;
+
+@Data
+@ConfigurationProperties(prefix = "c2s.pep.memory-budget")
+public class MemoryBudgetProperties {
+
+    /**
+     * Limits the estimated heap used by the documents of in-flight /access requests when enabled
+     */
+    private boolean enabled = true;
+
+    /**
+     * Total estimated heap in bytes that the documents of in-flight requests may use
+     */
+    @Min(1024)
+    private long maxInFlightBytes = 268435456;
+
+    /**
+     * Estimated heap used by a request per byte of its body, covering the request, DSS request and response, HTML and
+     * response copies of the document
+     */
+    @Min(1)
+    private int requestSizeMultiplier = 6;
+
+    /**
+     * Request body size reserved on admission for requests without a Content-Length or with a compressed body, the
+     * reservation is extended while their body is read
+     */
+    @Min(0)
+    private long unknownRequestSizeInBytes = 1048576;
+
+    /**
+     * Time in milliseconds a request waits for budget before it is rejected with 503
+     */
+    @Min(0)
+    private long maxWaitInMillis = 2000;
+
+    /**
+     * Value of the Retry-After header of rejected requests
+     */
+    @Min(0)
+    private int retryAfterInSeconds = 1;
+}
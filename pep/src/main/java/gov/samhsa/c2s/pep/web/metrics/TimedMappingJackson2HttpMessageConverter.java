@@ -0,0 +1,50 @@
+package gov.samhsa.c2s.pep.web.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gov.samhsa.c2s.pep.service.AccessMetrics;
+import gov.samhsa.c2s.pep.service.dto.AccessResponseDto;
+import gov.samhsa.c2s.pep.service.dto.AccessResponseWithDocumentDto;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Records the serialization stage of JSON access responses. The purpose of use is not known when the response is
+ * written, so the serialization timers are tagged with the decision and document size only.
+ */
+public class TimedMappingJackson2HttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    private final AccessMetrics accessMetrics;
+
+    public TimedMappingJackson2HttpMessageConverter(ObjectMapper objectMapper, AccessMetrics accessMetrics) {
+        super(objectMapper);
+        this.accessMetrics = accessMetrics;
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException, HttpMessageNotWritableException {
+        if (!(object instanceof AccessResponseDto)) {
+            super.writeInternal(object, type, outputMessage);
+            return;
+        }
+        final long start = System.nanoTime();
+        super.writeInternal(object, type, outputMessage);
+        accessMetrics.recordStage(AccessMetrics.Stage.SERIALIZATION, null, ((AccessResponseDto) object).getDecision(),
+                documentSize((AccessResponseDto) object), System.nanoTime() - start);
+    }
+
+    private static int documentSize(AccessResponseDto accessResponse) {
+        if (accessResponse instanceof AccessResponseWithDocumentDto) {
+            final AccessResponseWithDocumentDto accessResponseWithDocument = (AccessResponseWithDocumentDto) accessResponse;
+            final int segmentedDocumentSize = accessResponseWithDocument.getSegmentedDocument() != null ?
+                    accessResponseWithDocument.getSegmentedDocument().length : 0;
+            final int htmlSize = accessResponseWithDocument.getSegmentedDocumentAsHTML() != null ?
+                    accessResponseWithDocument.getSegmentedDocumentAsHTML().map(html -> html.length).orElse(0) : 0;
+            return segmentedDocumentSize + htmlSize;
+        }
+        return 0;
+    }
+}
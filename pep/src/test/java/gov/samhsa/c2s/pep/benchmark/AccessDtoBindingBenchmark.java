@@ -0,0 +1,120 @@
+package gov.samhsa.c2s.pep.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gov.samhsa.c2s.pep.infrastructure.dto.PatientIdDto;
+import gov.samhsa.c2s.pep.infrastructure.dto.SubjectPurposeOfUse;
+import gov.samhsa.c2s.pep.infrastructure.dto.XacmlRequestDto;
+import gov.samhsa.c2s.pep.service.dto.AccessRequestDto;
+import gov.samhsa.c2s.pep.service.dto.AccessResponseWithDocumentDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.ValidatorFactory;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the JSON binding and bean validation of the /access request and response with documents of 10 KB to 20 MB.
+ * The object mapper is built like the one of Spring Boot, with the JDK 8 module for the {@link Optional} fields. Run
+ * with {@code mvn -P benchmark verify -Djmh.includes=AccessDtoBindingBenchmark}, the {@code benchmark} profile enables
+ * the GC profiler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class AccessDtoBindingBenchmark {
+
+    @Param({"10", "100", "1000", "5000", "20000"})
+    private int documentSizeInKb;
+
+    private ObjectMapper objectMapper;
+
+    private ValidatorFactory validatorFactory;
+
+    private Validator validator;
+
+    private byte[] accessRequestJson;
+
+    private AccessRequestDto accessRequest;
+
+    private AccessResponseWithDocumentDto accessResponse;
+
+    @Setup
+    public void setup() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+
+        final byte[] document = SyntheticCdaDocuments.generate(documentSizeInKb * 1024);
+        accessRequest = AccessRequestDto.builder()
+                .xacmlRequest(XacmlRequestDto.builder()
+                        .recipientNpi("1111111111")
+                        .intermediaryNpi("2222222222")
+                        .purposeOfUse(SubjectPurposeOfUse.HEALTHCARE_TREATMENT)
+                        .patientId(PatientIdDto.builder().root("2.16.840.1.113883.4.357").extension("PUI100000000001").build())
+                        .build())
+                .document(Optional.of(document))
+                .documentEncoding(Optional.of(StandardCharsets.UTF_8.name()))
+                .build();
+        accessRequestJson = objectMapper.writeValueAsBytes(accessRequest);
+        // The rendered HTML is about twice the size of the segmented document
+        final byte[] html = new byte[document.length * 2];
+        accessResponse = AccessResponseWithDocumentDto.builder()
+                .decision("permit")
+                .segmentedDocument(document)
+                .segmentedDocumentEncoding(StandardCharsets.UTF_8.name())
+                .segmentedDocumentAsHTML(Optional.of(html))
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public AccessRequestDto deserializeRequest() throws IOException {
+        return objectMapper.readValue(accessRequestJson, AccessRequestDto.class);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<AccessRequestDto>> validateRequest() {
+        return validator.validate(accessRequest);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<AccessRequestDto>> deserializeAndValidateRequest() throws IOException {
+        return validator.validate(objectMapper.readValue(accessRequestJson, AccessRequestDto.class));
+    }
+
+    @Benchmark
+    public byte[] serializeResponse() throws IOException {
+        return objectMapper.writeValueAsBytes(accessResponse);
+    }
+
+    @Benchmark
+    public void serializeResponseToStream(Blackhole blackhole) throws IOException {
+        objectMapper.writeValue(new BlackholeOutputStream(blackhole), accessResponse);
+    }
+}
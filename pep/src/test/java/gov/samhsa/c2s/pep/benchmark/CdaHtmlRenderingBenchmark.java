@@ -0,0 +1,63 @@
+package gov.samhsa.c2s.pep.benchmark;
+
+import gov.samhsa.c2s.pep.service.CdaHtmlRenderer;
+import gov.samhsa.c2s.pep.service.CdaStylesheetRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the HTML rendering of segmented documents with the English and Spanish CDA stylesheets. Run with
+ * {@code mvn -P benchmark verify -Djmh.includes=CdaHtmlRenderingBenchmark}, the {@code benchmark} profile enables the
+ * GC profiler, which reports the allocation rate per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CdaHtmlRenderingBenchmark {
+
+    @Param({"16", "256", "2048", "8192"})
+    private int documentSizeInKb;
+
+    @Param({"en", "es"})
+    private String language;
+
+    private CdaHtmlRenderer cdaHtmlRenderer;
+
+    private byte[] segmentedDocument;
+
+    private Locale locale;
+
+    @Setup
+    public void setup() {
+        cdaHtmlRenderer = new CdaHtmlRenderer(new CdaStylesheetRegistry());
+        segmentedDocument = SyntheticCdaDocuments.generate(documentSizeInKb * 1024);
+        locale = new Locale(language);
+    }
+
+    @Benchmark
+    public byte[] renderToByteArray() {
+        return cdaHtmlRenderer.render(segmentedDocument, StandardCharsets.UTF_8.name(), locale);
+    }
+
+    @Benchmark
+    public void renderToStream(Blackhole blackhole) {
+        cdaHtmlRenderer.render(segmentedDocument, StandardCharsets.UTF_8.name(), locale, new BlackholeOutputStream(blackhole));
+    }
+}
@@ -0,0 +1,105 @@
+package gov.samhsa.c2s.pep.benchmark;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Generates synthetic C-CDA documents of a requested size for the benchmarks. The documents have a minimal CDA header
+ * and a structured body with as many narrative table sections as needed to reach the size.
+ */
+public final class SyntheticCdaDocuments {
+
+    public static final String DEFAULT_PATIENT_ID = "PUI100000000001";
+
+    private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<ClinicalDocument xmlns=\"urn:hl7-org:v3\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">\n" +
+            "  <realmCode code=\"US\"/>\n" +
+            "  <typeId root=\"2.16.840.1.113883.1.3\" extension=\"POCD_HD000040\"/>\n" +
+            "  <templateId root=\"2.16.840.1.113883.10.20.22.1.1\"/>\n" +
+            "  <templateId root=\"2.16.840.1.113883.10.20.22.1.2\"/>\n" +
+            "  <id root=\"2.16.840.1.113883.19.5.99999.1\" extension=\"benchmark\"/>\n" +
+            "  <code code=\"34133-9\" codeSystem=\"2.16.840.1.113883.6.1\" displayName=\"Summarization of Episode Note\"/>\n" +
+            "  <title>Synthetic Continuity of Care Document</title>\n" +
+            "  <effectiveTime value=\"20170101120000-0500\"/>\n" +
+            "  <confidentialityCode code=\"N\" codeSystem=\"2.16.840.1.113883.5.25\"/>\n" +
+            "  <languageCode code=\"en-US\"/>\n" +
+            "  <recordTarget>\n" +
+            "    <patientRole>\n" +
+            "      <id root=\"2.16.840.1.113883.4.357\" extension=\"PUI100000000001\"/>\n" +
+            "      <addr use=\"HP\"><streetAddressLine>1 Main Street</streetAddressLine><city>Rockville</city><state>MD</state><postalCode>20850</postalCode></addr>\n" +
+            "      <patient>\n" +
+            "        <name use=\"L\"><given>Alice</given><family>Benchmark</family></name>\n" +
+            "        <administrativeGenderCode code=\"F\" codeSystem=\"2.16.840.1.113883.5.1\"/>\n" +
+            "        <birthTime value=\"19700101\"/>\n" +
+            "      </patient>\n" +
+            "    </patientRole>\n" +
+            "  </recordTarget>\n" +
+            "  <author>\n" +
+            "    <time value=\"20170101120000-0500\"/>\n" +
+            "    <assignedAuthor>\n" +
+            "      <id root=\"2.16.840.1.113883.4.6\" extension=\"1111111111\"/>\n" +
+            "      <assignedPerson><name><given>Bob</given><family>Provider</family></name></assignedPerson>\n" +
+            "    </assignedAuthor>\n" +
+            "  </author>\n" +
+            "  <custodian>\n" +
+            "    <assignedCustodian>\n" +
+            "      <representedCustodianOrganization>\n" +
+            "        <id root=\"2.16.840.1.113883.4.6\" extension=\"2222222222\"/>\n" +
+            "        <name>Benchmark Health</name>\n" +
+            "      </representedCustodianOrganization>\n" +
+            "    </assignedCustodian>\n" +
+            "  </custodian>\n" +
+            "  <component>\n" +
+            "    <structuredBody>\n";
+
+    private static final String FOOTER = "    </structuredBody>\n" +
+            "  </component>\n" +
+            "</ClinicalDocument>\n";
+
+    private static final int ROWS_PER_SECTION = 20;
+
+    private SyntheticCdaDocuments() {
+    }
+
+    /**
+     * @return a UTF-8 encoded C-CDA document of at least the given size
+     */
+    public static byte[] generate(int sizeInBytes) {
+        return generate(sizeInBytes, DEFAULT_PATIENT_ID);
+    }
+
+    /**
+     * @return a UTF-8 encoded C-CDA document of at least the given size for the patient with the given MRN
+     */
+    public static byte[] generate(int sizeInBytes, String patientId) {
+        final StringBuilder document = new StringBuilder(sizeInBytes + 4096).append(HEADER.replace(DEFAULT_PATIENT_ID, patientId));
+        for (int section = 0; document.length() + FOOTER.length() < sizeInBytes; section++) {
+            appendSection(document, section);
+        }
+        return document.append(FOOTER).toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendSection(StringBuilder document, int section) {
+        document.append("      <component>\n")
+                .append("        <section>\n")
+                .append("          <templateId root=\"2.16.840.1.113883.10.20.22.2.5.1\"/>\n")
+                .append("          <code code=\"11450-4\" codeSystem=\"2.16.840.1.113883.6.1\" displayName=\"Problem List\"/>\n")
+                .append("          <title>Problems ").append(section).append("</title>\n")
+                .append("          <text>\n")
+                .append("            <table border=\"1\" width=\"100%\">\n")
+                .append("              <thead><tr><th>Problem</th><th>Code</th><th>Status</th><th>Onset</th></tr></thead>\n")
+                .append("              <tbody>\n");
+        for (int row = 0; row < ROWS_PER_SECTION; row++) {
+            document.append("                <tr ID=\"problem-").append(section).append('-').append(row).append("\">")
+                    .append("<td>Synthetic problem ").append(section).append('.').append(row).append("</td>")
+                    .append("<td>").append(10000000 + section * ROWS_PER_SECTION + row).append("</td>")
+                    .append("<td>Active</td>")
+                    .append("<td>2016-0").append(row % 9 + 1).append("-1").append(row % 9).append("</td>")
+                    .append("</tr>\n");
+        }
+        document.append("              </tbody>\n")
+                .append("            </table>\n")
+                .append("          </text>\n")
+                .append("        </section>\n")
+                .append("      </component>\n");
+    }
+}
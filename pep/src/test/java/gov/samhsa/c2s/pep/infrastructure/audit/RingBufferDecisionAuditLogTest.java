@@ -0,0 +1,104 @@
+package gov.samhsa.c2s.pep.infrastructure.audit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RingBufferDecisionAuditLogTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void record_Writes_Records_As_Json_Lines_In_Order() throws Exception {
+        // Arrange
+        final DecisionAuditProperties properties = properties();
+        final RingBufferDecisionAuditLog sut = new RingBufferDecisionAuditLog(properties);
+
+        // Act
+        for (int i = 0; i < 1000; i++) {
+            sut.record(record("message-" + i));
+        }
+        sut.close();
+
+        // Assert
+        final List<String> lines = readLines(temporaryFolder.getRoot().toPath());
+        assertEquals(1000, lines.size());
+        final JsonNode first = new ObjectMapper().readTree(lines.get(0));
+        assertEquals("message-0", first.get("messageId").asText());
+        assertEquals("SEGMENTED", first.get("outcome").asText());
+        assertEquals("ETH", first.get("obligations").get(0).asText());
+        assertEquals("message-999", new ObjectMapper().readTree(lines.get(999)).get("messageId").asText());
+    }
+
+    @Test
+    public void record_Rotates_Segments_And_Keeps_The_Newest() throws Exception {
+        // Arrange
+        final DecisionAuditProperties properties = properties();
+        properties.setMaxSegmentSizeInBytes(1024);
+        properties.setMaxSegments(3);
+        properties.setBatchSize(1);
+        final RingBufferDecisionAuditLog sut = new RingBufferDecisionAuditLog(properties);
+
+        // Act
+        for (int i = 0; i < 200; i++) {
+            sut.record(record("message-" + i));
+        }
+        sut.close();
+
+        // Assert
+        try (Stream<Path> segments = Files.list(temporaryFolder.getRoot().toPath())) {
+            assertEquals(3, segments.count());
+        }
+        final List<String> lines = readLines(temporaryFolder.getRoot().toPath());
+        assertTrue(lines.get(lines.size() - 1).contains("message-199"));
+    }
+
+    private DecisionAuditProperties properties() {
+        final DecisionAuditProperties properties = new DecisionAuditProperties();
+        properties.setDirectory(temporaryFolder.getRoot().getAbsolutePath());
+        properties.setBufferSize(64);
+        properties.setOverflowPolicy(DecisionAuditProperties.OverflowPolicy.BLOCK);
+        return properties;
+    }
+
+    private static DecisionAuditRecord record(String messageId) {
+        return DecisionAuditRecord.builder()
+                .timestamp(System.currentTimeMillis())
+                .messageId(messageId)
+                .patientId("PUI100000000001")
+                .homeCommunityId("2.16.840.1.113883.4.357")
+                .recipientNpi("1111111111")
+                .intermediaryNpi("2222222222")
+                .purposeOfUse("TREATMENT")
+                .decision("permit")
+                .obligations(Arrays.asList("ETH", "HIV"))
+                .outcome(DecisionAuditRecord.Outcome.SEGMENTED)
+                .build();
+    }
+
+    private static List<String> readLines(Path directory) throws IOException {
+        final List<String> lines = new ArrayList<>();
+        try (Stream<Path> segments = Files.list(directory)) {
+            for (Path segment : segments.sorted().collect(Collectors.toList())) {
+                lines.addAll(Files.readAllLines(segment, StandardCharsets.UTF_8));
+            }
+        }
+        return lines;
+    }
+}
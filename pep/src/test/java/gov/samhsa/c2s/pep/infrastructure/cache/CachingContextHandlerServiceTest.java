@@ -0,0 +1,126 @@
+package gov.samhsa.c2s.pep.infrastructure.cache;
+
+import feign.FeignException;
+import gov.samhsa.c2s.pep.infrastructure.ContextHandlerService;
+import gov.samhsa.c2s.pep.infrastructure.dto.PatientIdDto;
+import gov.samhsa.c2s.pep.infrastructure.dto.SubjectPurposeOfUse;
+import gov.samhsa.c2s.pep.infrastructure.dto.XacmlRequestDto;
+import gov.samhsa.c2s.pep.infrastructure.dto.XacmlResponseDto;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CachingContextHandlerServiceTest {
+
+    @Mock
+    private ContextHandlerService contextHandlerClient;
+
+    private DecisionCache decisionCache;
+
+    private CachingContextHandlerService sut;
+
+    @Before
+    public void setup() {
+        decisionCache = new DecisionCache(new DecisionCacheProperties());
+        sut = new CachingContextHandlerService(contextHandlerClient, decisionCache);
+    }
+
+    @Test
+    public void enforcePolicy_Calls_Context_Handler_Once_For_Equal_Requests() throws Exception {
+        // Arrange
+        final XacmlResponseDto xacmlResponse = XacmlResponseDto.builder().pdpDecision("permit").pdpObligation("ETH").build();
+        when(contextHandlerClient.enforcePolicy(xacmlRequest("extension"))).thenReturn(xacmlResponse);
+
+        // Act
+        final XacmlResponseDto first = sut.enforcePolicy(xacmlRequest("extension"));
+        final XacmlResponseDto second = sut.enforcePolicy(xacmlRequest("extension"));
+
+        // Assert
+        assertSame(xacmlResponse, first);
+        assertSame(xacmlResponse, second);
+        verify(contextHandlerClient, times(1)).enforcePolicy(xacmlRequest("extension"));
+        assertEquals(1, decisionCache.stats().hitCount());
+        assertEquals(1, decisionCache.stats().missCount());
+    }
+
+    @Test
+    public void enforcePolicy_Does_Not_Cache_Failed_Calls() throws Exception {
+        // Arrange
+        final FeignException e = mock(FeignException.class);
+        when(contextHandlerClient.enforcePolicy(xacmlRequest("extension"))).thenThrow(e);
+
+        // Act
+        for (int i = 0; i < 2; i++) {
+            try {
+                sut.enforcePolicy(xacmlRequest("extension"));
+                fail("FeignException is expected");
+            } catch (FeignException expected) {
+                assertSame(e, expected);
+            }
+        }
+
+        // Assert
+        verify(contextHandlerClient, times(2)).enforcePolicy(xacmlRequest("extension"));
+        assertEquals(0, decisionCache.size());
+    }
+
+    @Test
+    public void evictByPatientId_Evicts_Only_The_Decisions_Of_The_Patient() throws Exception {
+        // Arrange
+        final XacmlResponseDto xacmlResponse = XacmlResponseDto.builder().pdpDecision("permit").build();
+        when(contextHandlerClient.enforcePolicy(xacmlRequest("patient1"))).thenReturn(xacmlResponse);
+        when(contextHandlerClient.enforcePolicy(xacmlRequest("patient2"))).thenReturn(xacmlResponse);
+        sut.enforcePolicy(xacmlRequest("patient1"));
+        sut.enforcePolicy(xacmlRequest("patient2"));
+
+        // Act
+        final int evicted = decisionCache.evictByPatientId("patient1");
+        sut.enforcePolicy(xacmlRequest("patient1"));
+        sut.enforcePolicy(xacmlRequest("patient2"));
+
+        // Assert
+        assertEquals(1, evicted);
+        verify(contextHandlerClient, times(2)).enforcePolicy(xacmlRequest("patient1"));
+        verify(contextHandlerClient, times(1)).enforcePolicy(xacmlRequest("patient2"));
+    }
+
+    @Test
+    public void enforcePolicy_Does_Not_Cache_A_Decision_Evaluated_While_The_Patient_Was_Evicted() throws Exception {
+        // Arrange
+        final XacmlResponseDto staleResponse = XacmlResponseDto.builder().pdpDecision("permit").build();
+        final XacmlResponseDto freshResponse = XacmlResponseDto.builder().pdpDecision("deny").build();
+        when(contextHandlerClient.enforcePolicy(xacmlRequest("patient1"))).thenAnswer(invocation -> {
+            decisionCache.evictByPatientId("patient1");
+            return staleResponse;
+        }).thenReturn(freshResponse);
+
+        // Act
+        final XacmlResponseDto first = sut.enforcePolicy(xacmlRequest("patient1"));
+        final XacmlResponseDto second = sut.enforcePolicy(xacmlRequest("patient1"));
+
+        // Assert
+        assertSame(staleResponse, first);
+        assertSame(freshResponse, second);
+        verify(contextHandlerClient, times(2)).enforcePolicy(xacmlRequest("patient1"));
+    }
+
+    private static XacmlRequestDto xacmlRequest(String extension) {
+        return XacmlRequestDto.builder()
+                .recipientNpi("recipientNpi")
+                .intermediaryNpi("intermediaryNpi")
+                .purposeOfUse(SubjectPurposeOfUse.HEALTHCARE_TREATMENT)
+                .patientId(PatientIdDto.builder().root("root").extension(extension).build())
+                .build();
+    }
+}
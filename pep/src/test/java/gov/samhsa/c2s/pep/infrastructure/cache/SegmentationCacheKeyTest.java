@@ -0,0 +1,85 @@
+package gov.samhsa.c2s.pep.infrastructure.cache;
+
+import gov.samhsa.c2s.pep.infrastructure.dto.DSSRequest;
+import gov.samhsa.c2s.pep.infrastructure.dto.SubjectPurposeOfUse;
+import gov.samhsa.c2s.pep.infrastructure.dto.XacmlResult;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class SegmentationCacheKeyTest {
+
+    @Test
+    public void from_Ignores_Obligation_Order_And_Message_Id() throws Exception {
+        // Arrange
+        final DSSRequest first = dssRequest("document", SubjectPurposeOfUse.HEALTHCARE_TREATMENT, Arrays.asList("ETH", "HIV", "PSY"));
+        final DSSRequest second = dssRequest("document", SubjectPurposeOfUse.HEALTHCARE_TREATMENT, Arrays.asList("PSY", "ETH", "HIV"));
+
+        // Act and Assert
+        assertEquals(SegmentationCacheKey.from(first), SegmentationCacheKey.from(second));
+    }
+
+    @Test
+    public void from_Distinguishes_Document_Content_And_Purpose_Of_Use() throws Exception {
+        // Arrange
+        final List<String> obligations = Arrays.asList("ETH", "HIV");
+        final SegmentationCacheKey key = SegmentationCacheKey.from(dssRequest("document", SubjectPurposeOfUse.HEALTHCARE_TREATMENT, obligations));
+
+        // Act and Assert
+        assertNotEquals(key, SegmentationCacheKey.from(dssRequest("document2", SubjectPurposeOfUse.HEALTHCARE_TREATMENT, obligations)));
+        assertNotEquals(key, SegmentationCacheKey.from(dssRequest("document", SubjectPurposeOfUse.RESEARCH, obligations)));
+    }
+
+    @Test
+    public void from_Distinguishes_Documents_Differing_Outside_The_Hashed_Sample() throws Exception {
+        // Arrange
+        final List<String> obligations = Arrays.asList("ETH", "HIV");
+        final char[] content = new char[100000];
+        Arrays.fill(content, 'a');
+        final String document = new String(content);
+        final String changedDocument = document.substring(0, 50001) + "b" + document.substring(50002);
+        final SegmentationCacheKey key = SegmentationCacheKey.from(dssRequest(document, SubjectPurposeOfUse.HEALTHCARE_TREATMENT, obligations));
+        final SegmentationCacheKey changedKey = SegmentationCacheKey.from(dssRequest(changedDocument, SubjectPurposeOfUse.HEALTHCARE_TREATMENT, obligations));
+
+        // Act and Assert
+        assertEquals(key.hashCode(), changedKey.hashCode());
+        assertNotEquals(key, changedKey);
+        assertNotEquals(key.detach(), changedKey);
+    }
+
+    @Test
+    public void detach_Returns_An_Equal_Key_Without_The_Document() throws Exception {
+        // Arrange
+        final List<String> obligations = Arrays.asList("ETH", "HIV");
+        final SegmentationCacheKey key = SegmentationCacheKey.from(dssRequest("document", SubjectPurposeOfUse.HEALTHCARE_TREATMENT, obligations));
+        final SegmentationCacheKey otherKey = SegmentationCacheKey.from(dssRequest("document", SubjectPurposeOfUse.HEALTHCARE_TREATMENT, obligations));
+
+        // Act
+        final SegmentationCacheKey detachedKey = key.detach();
+
+        // Assert
+        assertEquals(otherKey, detachedKey);
+        assertEquals(detachedKey, otherKey);
+        assertEquals(otherKey.hashCode(), detachedKey.hashCode());
+        assertEquals(key.getDocumentDigest(), detachedKey.getDocumentDigest());
+    }
+
+    private static DSSRequest dssRequest(String document, SubjectPurposeOfUse purposeOfUse, List<String> obligations) {
+        return DSSRequest.builder()
+                .document(document.getBytes(StandardCharsets.UTF_8))
+                .documentEncoding(StandardCharsets.UTF_8.name())
+                .xacmlResult(XacmlResult.builder()
+                        .pdpDecision("permit")
+                        .subjectPurposeOfUse(purposeOfUse)
+                        .pdpObligations(obligations)
+                        .messageId(UUID.randomUUID().toString())
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,158 @@
+package gov.samhsa.c2s.pep.infrastructure.coalescing;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class SingleFlightTest {
+
+    private static final int CALLERS = 4;
+
+    private ExecutorService executorService;
+
+    private SingleFlight<String, String> sut;
+
+    @Before
+    public void setup() {
+        executorService = Executors.newFixedThreadPool(CALLERS);
+        sut = new SingleFlight<>("test", TimeUnit.SECONDS.toMillis(5));
+    }
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void execute_Shares_One_Call_Between_Concurrent_Callers() throws Exception {
+        // Arrange
+        final CountDownLatch callStarted = new CountDownLatch(1);
+        final CountDownLatch releaseCall = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        final List<Future<String>> results = new ArrayList<>();
+
+        // Act
+        results.add(executorService.submit(() -> sut.execute("key", () -> {
+            calls.incrementAndGet();
+            callStarted.countDown();
+            await(releaseCall);
+            return "result";
+        })));
+        callStarted.await(5, TimeUnit.SECONDS);
+        for (int i = 1; i < CALLERS; i++) {
+            results.add(executorService.submit(() -> sut.execute("key", () -> {
+                calls.incrementAndGet();
+                return "other";
+            })));
+        }
+        waitForCollapsedCalls(CALLERS - 1);
+        releaseCall.countDown();
+
+        // Assert
+        for (Future<String> result : results) {
+            assertEquals("result", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, calls.get());
+        assertEquals(1, sut.getExecutedCalls());
+        assertEquals(CALLERS - 1, sut.getCollapsedCalls());
+    }
+
+    @Test
+    public void execute_Shares_The_Exception_Of_The_Call() throws Exception {
+        // Arrange
+        final CountDownLatch callStarted = new CountDownLatch(1);
+        final CountDownLatch releaseCall = new CountDownLatch(1);
+        final IllegalStateException exception = new IllegalStateException("downstream failure");
+
+        // Act
+        final Future<String> first = executorService.submit(() -> sut.execute("key", () -> {
+            callStarted.countDown();
+            await(releaseCall);
+            throw exception;
+        }));
+        callStarted.await(5, TimeUnit.SECONDS);
+        final Future<String> second = executorService.submit(() -> sut.execute("key", () -> "other"));
+        waitForCollapsedCalls(1);
+        releaseCall.countDown();
+
+        // Assert
+        assertSame(exception, causeOf(first));
+        assertSame(exception, causeOf(second));
+    }
+
+    @Test
+    public void execute_Does_Not_Retain_Completed_Calls() throws Exception {
+        // Act
+        final String first = sut.execute("key", () -> "first");
+        final String second = sut.execute("key", () -> "second");
+
+        // Assert
+        assertEquals("first", first);
+        assertEquals("second", second);
+        assertEquals(2, sut.getExecutedCalls());
+        assertEquals(0, sut.getCollapsedCalls());
+    }
+
+    @Test
+    public void execute_Calls_Itself_When_The_Shared_Call_Exceeds_The_Wait_Timeout() throws Exception {
+        // Arrange
+        sut = new SingleFlight<>("test", 50);
+        final CountDownLatch callStarted = new CountDownLatch(1);
+        final CountDownLatch releaseCall = new CountDownLatch(1);
+
+        // Act
+        final Future<String> first = executorService.submit(() -> sut.execute("key", () -> {
+            callStarted.countDown();
+            await(releaseCall);
+            return "first";
+        }));
+        callStarted.await(5, TimeUnit.SECONDS);
+        final String second = sut.execute("key", () -> "second");
+        releaseCall.countDown();
+
+        // Assert
+        assertEquals("second", second);
+        assertEquals("first", first.get(5, TimeUnit.SECONDS));
+        assertEquals(1, sut.getCollapsedCalls());
+        assertEquals(1, sut.getTimedOutWaits());
+    }
+
+    private void waitForCollapsedCalls(long expected) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (sut.getCollapsedCalls() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static Throwable causeOf(Future<String> future) throws Exception {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("ExecutionException is expected");
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package gov.samhsa.c2s.pep.infrastructure.feign;
+
+import feign.RequestTemplate;
+import feign.Response;
+import feign.Util;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CompressingRequestInterceptorTest {
+
+    private FeignCompressionProperties feignCompressionProperties;
+
+    private CompressingRequestInterceptor sut;
+
+    @Before
+    public void setup() {
+        feignCompressionProperties = new FeignCompressionProperties();
+        feignCompressionProperties.setRequestEnabled(true);
+        feignCompressionProperties.setMinRequestSizeInBytes(100);
+        sut = new CompressingRequestInterceptor(feignCompressionProperties);
+    }
+
+    @Test
+    public void apply_Compresses_Bodies_Above_The_Threshold() throws Exception {
+        // Arrange
+        final byte[] body = new byte[1000];
+        Arrays.fill(body, (byte) 'a');
+        final RequestTemplate template = new RequestTemplate().body(body, StandardCharsets.UTF_8);
+
+        // Act
+        sut.apply(template);
+
+        // Assert
+        assertEquals(Collections.singletonList("gzip"), template.headers().get(HttpHeaders.CONTENT_ENCODING));
+        assertTrue(template.headers().get(HttpHeaders.ACCEPT_ENCODING).containsAll(Arrays.asList("gzip", "deflate")));
+        final Response decompressed = DecompressingDecoder.decompress(gzipResponse(template.body()));
+        assertArrayEquals(body, Util.toByteArray(decompressed.body().asInputStream()));
+        assertFalse(decompressed.headers().containsKey(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    public void apply_Does_Not_Compress_Bodies_Below_The_Threshold() throws Exception {
+        // Arrange
+        final byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+        final RequestTemplate template = new RequestTemplate().body(body, StandardCharsets.UTF_8);
+
+        // Act
+        sut.apply(template);
+
+        // Assert
+        assertArrayEquals(body, template.body());
+        assertNull(template.headers().get(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    private static Response gzipResponse(byte[] body) {
+        final Map<String, Collection<String>> headers = Collections.singletonMap(HttpHeaders.CONTENT_ENCODING, Collections.singletonList("gzip"));
+        return Response.create(200, "OK", headers, new ByteArrayInputStream(body), body.length);
+    }
+}
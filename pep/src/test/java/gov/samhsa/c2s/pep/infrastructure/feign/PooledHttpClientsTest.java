@@ -0,0 +1,61 @@
+package gov.samhsa.c2s.pep.infrastructure.feign;
+
+import org.apache.http.client.HttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class PooledHttpClientsTest {
+
+    private PooledHttpClients sut;
+
+    @Before
+    public void setup() {
+        final HttpClientPoolProperties properties = new HttpClientPoolProperties();
+        final HttpClientPoolProperties.Pool dssPool = new HttpClientPoolProperties.Pool();
+        dssPool.setMaxConnections(5);
+        properties.getServices().put("dss", dssPool);
+        sut = new PooledHttpClients(properties);
+    }
+
+    @After
+    public void tearDown() {
+        sut.close();
+    }
+
+    @Test
+    public void get_Returns_One_Client_Per_Service() throws Exception {
+        // Act
+        final HttpClient dss = sut.get("dss");
+        final HttpClient dssAgain = sut.get("dss");
+        final HttpClient contextHandler = sut.get("context-handler");
+
+        // Assert
+        assertSame(dss, dssAgain);
+        assertNotSame(dss, contextHandler);
+    }
+
+    @Test
+    public void metrics_Publishes_The_Pool_Size_Of_Each_Service() throws Exception {
+        // Arrange
+        sut.get("dss");
+        sut.get("context-handler");
+
+        // Act
+        final Map<String, Number> metrics = sut.metrics().stream()
+                .collect(Collectors.toMap(Metric::getName, Metric::getValue));
+
+        // Assert
+        assertEquals(5, metrics.get("pep.http-client-pool.dss.max"));
+        assertEquals(20, metrics.get("pep.http-client-pool.context-handler.max"));
+        assertEquals(0, metrics.get("pep.http-client-pool.dss.leased"));
+    }
+}
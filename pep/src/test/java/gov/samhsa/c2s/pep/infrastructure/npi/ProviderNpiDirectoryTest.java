@@ -0,0 +1,100 @@
+package gov.samhsa.c2s.pep.infrastructure.npi;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class ProviderNpiDirectoryTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private ProviderNpiDirectory sut;
+
+    @After
+    public void tearDown() {
+        if (sut != null) {
+            sut.close();
+        }
+    }
+
+    @Test
+    public void findNpi_And_findUsername_Resolve_Both_Directions() throws Exception {
+        // Arrange
+        final Path file = write(Arrays.asList(
+                "# username,npi",
+                "alice,1111111111",
+                "",
+                "bob , 2222222222",
+                "carol,not-an-npi",
+                "alice,3333333333",
+                "dave,2222222222"));
+
+        // Act
+        sut = new ProviderNpiDirectory(file, 1, 0);
+
+        // Assert
+        assertEquals(Optional.of("1111111111"), sut.findNpi("alice"));
+        assertEquals(Optional.of("2222222222"), sut.findNpi("bob"));
+        assertEquals(Optional.of("2222222222"), sut.findNpi("dave"));
+        assertFalse(sut.findNpi("carol").isPresent());
+        assertEquals(Optional.of("alice"), sut.findUsername("1111111111"));
+        assertEquals(Optional.of("bob"), sut.findUsername("2222222222"));
+        assertFalse(sut.findUsername("3333333333").isPresent());
+        assertEquals(3, sut.getUsers().size());
+        assertEquals("1111111111", sut.getUsers().get("alice"));
+    }
+
+    @Test
+    public void findNpi_Resolves_Directories_Larger_Than_The_Expected_Size() throws Exception {
+        // Arrange
+        final List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            lines.add("user" + i + "," + (1000000000L + i));
+        }
+
+        // Act
+        sut = new ProviderNpiDirectory(write(lines), 16, 0);
+
+        // Assert
+        assertEquals(10000, sut.getUsers().size());
+        assertEquals(Optional.of("1000009999"), sut.findNpi("user9999"));
+        assertEquals(Optional.of("user4242"), sut.findUsername("1000004242"));
+    }
+
+    @Test
+    public void reloadIfModified_Swaps_In_The_Changed_File() throws Exception {
+        // Arrange
+        final Path file = write(Arrays.asList("alice,1111111111"));
+        sut = new ProviderNpiDirectory(file, 1, 0);
+        write(Arrays.asList("bob,2222222222", "carol,3333333333"));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 60000));
+
+        // Act
+        sut.reloadIfModified();
+
+        // Assert
+        assertFalse(sut.findNpi("alice").isPresent());
+        assertEquals(Optional.of("bob"), sut.findUsername("2222222222"));
+        assertEquals(2, sut.getUsers().size());
+    }
+
+    private Path write(List<String> lines) throws IOException {
+        final Path file = temporaryFolder.getRoot().toPath().resolve("provider-directory.csv");
+        return Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+}
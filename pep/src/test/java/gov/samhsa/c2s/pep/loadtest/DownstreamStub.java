@@ -0,0 +1,85 @@
+package gov.samhsa.c2s.pep.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * In-process HTTP stub of a downstream service, which answers a single JSON endpoint after a sampled latency and
+ * fails calls at the configured error rate. The stub has an unbounded thread pool so that it never limits the
+ * throughput of PEP.
+ */
+class DownstreamStub {
+
+    private final String name;
+
+    private final String path;
+
+    private final DownstreamStubSettings settings;
+
+    private final Function<byte[], byte[]> responder;
+
+    private HttpServer server;
+
+    private ExecutorService executorService;
+
+    DownstreamStub(String name, String path, DownstreamStubSettings settings, Function<byte[], byte[]> responder) {
+        this.name = name;
+        this.path = path;
+        this.settings = settings;
+        this.responder = responder;
+    }
+
+    void start() throws IOException {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        executorService = Executors.newCachedThreadPool(runnable -> {
+            final Thread thread = new Thread(runnable, name + "-stub-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(new InetSocketAddress("localhost", settings.getPort()), 1024);
+        server.createContext(path, this::handle);
+        server.setExecutor(executorService);
+        server.start();
+    }
+
+    void stop() {
+        server.stop(0);
+        executorService.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            final byte[] request = StreamUtils.copyToByteArray(exchange.getRequestBody());
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            TimeUnit.MILLISECONDS.sleep(settings.getLatencyDistribution().sample(random, settings.getLatencyMeanInMillis(), settings.getLatencySpreadInMillis()));
+            if (random.nextDouble() < settings.getErrorRate()) {
+                exchange.sendResponseHeaders(HttpStatus.INTERNAL_SERVER_ERROR.value(), -1);
+                return;
+            }
+            final byte[] response = responder.apply(request);
+            exchange.getResponseHeaders().set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_UTF8_VALUE);
+            exchange.sendResponseHeaders(HttpStatus.OK.value(), response.length);
+            exchange.getResponseBody().write(response);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.sendResponseHeaders(HttpStatus.SERVICE_UNAVAILABLE.value(), -1);
+        } catch (RuntimeException e) {
+            exchange.sendResponseHeaders(HttpStatus.INTERNAL_SERVER_ERROR.value(), -1);
+        } finally {
+            exchange.close();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package gov.samhsa.c2s.pep.loadtest;
+
+import lombok.Value;
+
+@Value
+public class DownstreamStubSettings {
+
+    int port;
+
+    LatencyDistribution latencyDistribution;
+
+    long latencyMeanInMillis;
+
+    long latencySpreadInMillis;
+
+    /**
+     * Ratio of calls answered with 500
+     */
+    double errorRate;
+
+    static DownstreamStubSettings fromSystemProperties(String prefix, int defaultPort, long defaultLatencyMeanInMillis) {
+        return new DownstreamStubSettings(
+                Integer.getInteger(prefix + ".port", defaultPort),
+                LatencyDistribution.valueOf(System.getProperty(prefix + ".latency-distribution", LatencyDistribution.LOGNORMAL.name()).toUpperCase()),
+                Long.getLong(prefix + ".latency-mean-millis", defaultLatencyMeanInMillis),
+                Long.getLong(prefix + ".latency-spread-millis", defaultLatencyMeanInMillis / 2),
+                Double.parseDouble(System.getProperty(prefix + ".error-rate", "0")));
+    }
+}
@@ -0,0 +1,52 @@
+package gov.samhsa.c2s.pep.loadtest;
+
+import java.util.Random;
+
+/**
+ * Latency distributions of the downstream stubs, sampled in milliseconds from a mean and a spread
+ */
+public enum LatencyDistribution {
+    /**
+     * Always the mean
+     */
+    FIXED {
+        @Override
+        long sample(Random random, long meanInMillis, long spreadInMillis) {
+            return meanInMillis;
+        }
+    },
+    /**
+     * Uniformly distributed within the mean plus or minus the spread
+     */
+    UNIFORM {
+        @Override
+        long sample(Random random, long meanInMillis, long spreadInMillis) {
+            return Math.max(0, meanInMillis - spreadInMillis + (long) (random.nextDouble() * 2 * spreadInMillis));
+        }
+    },
+    /**
+     * Exponentially distributed with the mean, the spread is ignored
+     */
+    EXPONENTIAL {
+        @Override
+        long sample(Random random, long meanInMillis, long spreadInMillis) {
+            return (long) (-meanInMillis * Math.log(1 - random.nextDouble()));
+        }
+    },
+    /**
+     * Log-normally distributed with the mean and a long tail that grows with the spread, the usual shape of service
+     * latencies
+     */
+    LOGNORMAL {
+        @Override
+        long sample(Random random, long meanInMillis, long spreadInMillis) {
+            if (meanInMillis <= 0) {
+                return 0;
+            }
+            final double sigma = Math.log(1 + Math.pow((double) spreadInMillis / meanInMillis, 2));
+            return (long) (meanInMillis * Math.exp(Math.sqrt(sigma) * random.nextGaussian() - sigma / 2));
+        }
+    };
+
+    abstract long sample(Random random, long meanInMillis, long spreadInMillis);
+}
@@ -0,0 +1,159 @@
+package gov.samhsa.c2s.pep.loadtest;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Closed-loop load generator: each client thread sends the next /access request as soon as the previous response has
+ * been read, over a kept-alive connection.
+ */
+class LoadTestDriver {
+
+    private final URL accessUrl;
+
+    private final List<byte[]> accessRequests;
+
+    private final AtomicInteger nextAccessRequest = new AtomicInteger();
+
+    /**
+     * @param accessRequests request bodies sent in turn by all client threads
+     */
+    LoadTestDriver(URL accessUrl, List<byte[]> accessRequests) {
+        this.accessUrl = accessUrl;
+        this.accessRequests = accessRequests;
+    }
+
+    LevelResult run(int concurrency, long durationInMillis) throws Exception {
+        final ExecutorService executorService = Executors.newFixedThreadPool(concurrency);
+        try {
+            final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationInMillis);
+            final List<Future<ClientResult>> clients = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                clients.add(executorService.submit(() -> runClient(deadline)));
+            }
+            final ClientResult total = new ClientResult();
+            for (Future<ClientResult> client : clients) {
+                total.add(client.get());
+            }
+            return new LevelResult(concurrency, durationInMillis, total);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private ClientResult runClient(long deadline) {
+        final ClientResult result = new ClientResult();
+        while (System.nanoTime() < deadline) {
+            final long start = System.nanoTime();
+            final int status = send();
+            result.record(status, System.nanoTime() - start);
+        }
+        return result;
+    }
+
+    private int send() {
+        final byte[] accessRequest = accessRequests.get(Math.floorMod(nextAccessRequest.getAndIncrement(), accessRequests.size()));
+        try {
+            final HttpURLConnection connection = (HttpURLConnection) accessUrl.openConnection();
+            connection.setRequestMethod(HttpMethod.POST.name());
+            connection.setRequestProperty("Content-Type", MediaType.APPLICATION_JSON_UTF8_VALUE);
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(accessRequest.length);
+            try (OutputStream output = connection.getOutputStream()) {
+                output.write(accessRequest);
+            }
+            final int status = connection.getResponseCode();
+            // Read the whole response so that the connection is kept alive
+            try (InputStream input = status < HttpStatus.BAD_REQUEST.value() ? connection.getInputStream() : connection.getErrorStream()) {
+                if (input != null) {
+                    StreamUtils.drain(input);
+                }
+            }
+            return status;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static class ClientResult {
+
+        private long[] latencies = new long[1024];
+
+        private int requests;
+
+        private int rejected;
+
+        private int errors;
+
+        void record(int status, long latencyInNanos) {
+            if (requests == latencies.length) {
+                latencies = Arrays.copyOf(latencies, latencies.length * 2);
+            }
+            latencies[requests++] = latencyInNanos;
+            if (status == HttpStatus.SERVICE_UNAVAILABLE.value()) {
+                rejected++;
+            } else if (status != HttpStatus.OK.value()) {
+                errors++;
+            }
+        }
+
+        void add(ClientResult other) {
+            latencies = Arrays.copyOf(latencies, requests + other.requests);
+            System.arraycopy(other.latencies, 0, latencies, requests, other.requests);
+            requests += other.requests;
+            rejected += other.rejected;
+            errors += other.errors;
+        }
+    }
+
+    static class LevelResult {
+
+        static final String HEADER = String.format("%11s %9s %9s %9s %10s %9s %9s %9s %9s %9s",
+                "concurrency", "requests", "rejected", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        private final int concurrency;
+
+        private final long durationInMillis;
+
+        private final ClientResult result;
+
+        private LevelResult(int concurrency, long durationInMillis, ClientResult result) {
+            this.concurrency = concurrency;
+            this.durationInMillis = durationInMillis;
+            this.result = result;
+            Arrays.sort(result.latencies, 0, result.requests);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%11d %9d %9d %9d %10.1f %9.1f %9.1f %9.1f %9.1f %9.1f",
+                    concurrency, result.requests, result.rejected, result.errors,
+                    result.requests * 1000.0 / durationInMillis,
+                    percentile(50), percentile(90), percentile(99), percentile(99.9), percentile(100));
+        }
+
+        private double percentile(double percentile) {
+            if (result.requests == 0) {
+                return 0;
+            }
+            final int index = (int) Math.ceil(percentile / 100 * result.requests) - 1;
+            return result.latencies[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package gov.samhsa.c2s.pep.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gov.samhsa.c2s.pep.PepApplication;
+import gov.samhsa.c2s.pep.benchmark.SyntheticCdaDocuments;
+import gov.samhsa.c2s.pep.infrastructure.dto.DSSRequest;
+import gov.samhsa.c2s.pep.infrastructure.dto.DSSResponse;
+import gov.samhsa.c2s.pep.infrastructure.dto.PatientIdDto;
+import gov.samhsa.c2s.pep.infrastructure.dto.SubjectPurposeOfUse;
+import gov.samhsa.c2s.pep.infrastructure.dto.XacmlRequestDto;
+import gov.samhsa.c2s.pep.infrastructure.dto.XacmlResponseDto;
+import gov.samhsa.c2s.pep.service.dto.AccessRequestDto;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Runs PEP with the load-test profile against in-process stubs of the context-handler and DSS, and reports the
+ * throughput and latency percentiles of /access at increasing concurrency. Run with
+ * {@code mvn -P load-test verify [-Dloadtest.arguments="-Dloadtest.concurrency=1,8,64 ..."]}.
+ * <p>
+ * Settings are read from system properties:
+ * <ul>
+ * <li>{@code loadtest.pep.port}, {@code loadtest.context-handler.port}, {@code loadtest.dss.port}</li>
+ * <li>{@code loadtest.<context-handler|dss>.latency-distribution}: fixed, uniform, exponential or lognormal</li>
+ * <li>{@code loadtest.<context-handler|dss>.latency-mean-millis} and {@code latency-spread-millis}</li>
+ * <li>{@code loadtest.<context-handler|dss>.error-rate}: ratio of downstream calls failing with 500</li>
+ * <li>{@code loadtest.context-handler.deny-rate}: ratio of deny decisions</li>
+ * <li>{@code loadtest.dss.response-size-kb}: size of the segmented document, the request document is returned if 0</li>
+ * <li>{@code loadtest.document-size-kb}, {@code loadtest.html}: document sent to /access and HTML rendering</li>
+ * <li>{@code loadtest.distinct-requests}: number of requests with a distinct patient and document sent in turn, all
+ * of them are held in memory</li>
+ * <li>{@code loadtest.coalescing}: enables the coalescing of identical downstream calls, disabled by default so that
+ * each request makes its own downstream calls</li>
+ * <li>{@code loadtest.concurrency}, {@code loadtest.warmup-seconds}, {@code loadtest.duration-seconds}</li>
+ * </ul>
+ */
+public class PepLoadTest {
+
+    private static final String PREFIX = "loadtest.";
+
+    public static void main(String[] args) throws Exception {
+        final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        final int pepPort = Integer.getInteger(PREFIX + "pep.port", 18455);
+        final DownstreamStubSettings contextHandlerSettings = DownstreamStubSettings.fromSystemProperties(PREFIX + "context-handler", 18081, 20);
+        final DownstreamStubSettings dssSettings = DownstreamStubSettings.fromSystemProperties(PREFIX + "dss", 18082, 200);
+        final double denyRate = Double.parseDouble(System.getProperty(PREFIX + "context-handler.deny-rate", "0"));
+        final int dssResponseSizeInKb = Integer.getInteger(PREFIX + "dss.response-size-kb", 0);
+        final int documentSizeInKb = Integer.getInteger(PREFIX + "document-size-kb", 100);
+        final boolean html = Boolean.getBoolean(PREFIX + "html");
+        final int distinctRequests = Integer.getInteger(PREFIX + "distinct-requests", 64);
+        final boolean coalescing = Boolean.getBoolean(PREFIX + "coalescing");
+        final int[] concurrencyLevels = Arrays.stream(System.getProperty(PREFIX + "concurrency", "1,2,4,8,16,32,64,128").split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        final long warmupInMillis = Long.getLong(PREFIX + "warmup-seconds", 15) * 1000;
+        final long durationInMillis = Long.getLong(PREFIX + "duration-seconds", 30) * 1000;
+
+        final byte[] permit = objectMapper.writeValueAsBytes(XacmlResponseDto.builder().pdpDecision("permit").pdpObligation("ETH").pdpObligation("HIV").build());
+        final byte[] deny = objectMapper.writeValueAsBytes(XacmlResponseDto.builder().pdpDecision("deny").build());
+        final byte[] segmentedDocument = dssResponseSizeInKb > 0 ? SyntheticCdaDocuments.generate(dssResponseSizeInKb * 1024) : null;
+        final DownstreamStub contextHandler = new DownstreamStub("context-handler", "/policyEnforcement", contextHandlerSettings,
+                request -> ThreadLocalRandom.current().nextDouble() < denyRate ? deny : permit);
+        final DownstreamStub dss = new DownstreamStub("dss", "/segmentedDocument", dssSettings,
+                request -> segment(objectMapper, request, segmentedDocument));
+
+        // The keep-alive cache of HttpURLConnection only keeps 5 connections per host by default
+        System.setProperty("http.maxConnections", String.valueOf(Arrays.stream(concurrencyLevels).max().orElse(5)));
+        contextHandler.start();
+        dss.start();
+        final ConfigurableApplicationContext pep = new SpringApplicationBuilder(PepApplication.class).run(
+                "--spring.profiles.active=load-test",
+                "--server.port=" + pepPort,
+                "--context-handler.ribbon.listOfServers=localhost:" + contextHandlerSettings.getPort(),
+                "--dss.ribbon.listOfServers=localhost:" + dssSettings.getPort(),
+                "--c2s.pep.coalescing.context-handler-enabled=" + coalescing,
+                "--c2s.pep.coalescing.dss-enabled=" + coalescing);
+        try {
+            final List<byte[]> accessRequests = new ArrayList<>(distinctRequests);
+            for (int i = 0; i < distinctRequests; i++) {
+                accessRequests.add(objectMapper.writeValueAsBytes(accessRequest(String.format("PUI1%011d", i), documentSizeInKb)));
+            }
+            final LoadTestDriver driver = new LoadTestDriver(
+                    new URL("http://localhost:" + pepPort + "/access?getSegmentedDocumentAsHTML=" + html), accessRequests);
+            System.out.println("Warming up for " + warmupInMillis + " ms");
+            driver.run(concurrencyLevels[0], warmupInMillis);
+            System.out.println(LoadTestDriver.LevelResult.HEADER);
+            for (int concurrency : concurrencyLevels) {
+                System.out.println(driver.run(concurrency, durationInMillis));
+            }
+        } finally {
+            pep.close();
+            dss.stop();
+            contextHandler.stop();
+        }
+    }
+
+    private static byte[] segment(ObjectMapper objectMapper, byte[] request, byte[] segmentedDocument) {
+        try {
+            final DSSRequest dssRequest = objectMapper.readValue(request, DSSRequest.class);
+            return objectMapper.writeValueAsBytes(DSSResponse.builder()
+                    .segmentedDocument(segmentedDocument != null ? segmentedDocument : dssRequest.getDocument())
+                    .encoding(dssRequest.getDocumentEncoding())
+                    .isCCDADocument(true)
+                    .build());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static AccessRequestDto accessRequest(String patientId, int documentSizeInKb) {
+        return AccessRequestDto.builder()
+                .xacmlRequest(XacmlRequestDto.builder()
+                        .recipientNpi("1111111111")
+                        .intermediaryNpi("2222222222")
+                        .purposeOfUse(SubjectPurposeOfUse.HEALTHCARE_TREATMENT)
+                        .patientId(PatientIdDto.builder().root("2.16.840.1.113883.4.357").extension(patientId).build())
+                        .build())
+                .document(Optional.of(SyntheticCdaDocuments.generate(documentSizeInKb * 1024, patientId)))
+                .documentEncoding(Optional.of(StandardCharsets.UTF_8.name()))
+                .build();
+    }
+}
@@ -0,0 +1,73 @@
+package gov.samhsa.c2s.pep.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+
+public class RateLimitingTurboFilterTest {
+
+    private final AtomicLong currentTimeMillis = new AtomicLong(1000);
+
+    private final LoggerContext loggerContext = new LoggerContext();
+
+    private RateLimitingTurboFilter sut;
+
+    private Logger limitedLogger;
+
+    @Before
+    public void setup() {
+        loggerContext.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME).setLevel(Level.DEBUG);
+        limitedLogger = loggerContext.getLogger("gov.samhsa.c2s.pep.service.PolicyEnforcementPointServiceImpl");
+        sut = new RateLimitingTurboFilter(currentTimeMillis::get);
+        sut.addLogger("gov.samhsa.c2s.pep.service");
+        sut.setMaxEventsPerSecond(2);
+        sut.start();
+    }
+
+    @Test
+    public void decide_Denies_Events_Above_The_Limit_Until_The_Next_Second() throws Exception {
+        // Act
+        final FilterReply first = decide(limitedLogger, Level.INFO);
+        final FilterReply second = decide(limitedLogger, Level.DEBUG);
+        final FilterReply third = decide(limitedLogger, Level.INFO);
+        currentTimeMillis.addAndGet(1000);
+        final FilterReply nextSecond = decide(limitedLogger, Level.INFO);
+
+        // Assert
+        assertEquals(FilterReply.NEUTRAL, first);
+        assertEquals(FilterReply.NEUTRAL, second);
+        assertEquals(FilterReply.DENY, third);
+        assertEquals(FilterReply.NEUTRAL, nextSecond);
+        assertEquals(1, sut.getDenied());
+    }
+
+    @Test
+    public void decide_Does_Not_Limit_Warnings_Other_Loggers_Or_Enabled_Checks() throws Exception {
+        // Arrange
+        final Logger otherLogger = loggerContext.getLogger("gov.samhsa.c2s.pep.servicex.Other");
+        decide(limitedLogger, Level.INFO);
+        decide(limitedLogger, Level.INFO);
+
+        // Act
+        final FilterReply warning = decide(limitedLogger, Level.WARN);
+        final FilterReply other = decide(otherLogger, Level.INFO);
+        final FilterReply enabledCheck = sut.decide(null, limitedLogger, Level.INFO, null, null, null);
+
+        // Assert
+        assertEquals(FilterReply.NEUTRAL, warning);
+        assertEquals(FilterReply.NEUTRAL, other);
+        assertEquals(FilterReply.NEUTRAL, enabledCheck);
+        assertEquals(0, sut.getDenied());
+    }
+
+    private FilterReply decide(Logger logger, Level level) {
+        return sut.decide(null, logger, level, "message", null, null);
+    }
+}
@@ -0,0 +1,47 @@
+package gov.samhsa.c2s.pep.service;
+
+import com.codahale.metrics.MetricRegistry;
+import gov.samhsa.c2s.pep.infrastructure.dto.SubjectPurposeOfUse;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class AccessMetricsTest {
+
+    private MetricRegistry metricRegistry;
+
+    private AccessMetrics sut;
+
+    @Before
+    public void setup() {
+        metricRegistry = new MetricRegistry();
+        sut = new AccessMetrics(metricRegistry);
+    }
+
+    @Test
+    public void recordStage_Encodes_Tags_In_The_Timer_Name() throws Exception {
+        // Act
+        sut.recordStage(AccessMetrics.Stage.DSS, SubjectPurposeOfUse.HEALTHCARE_TREATMENT, "Permit", 2 * 1024 * 1024, TimeUnit.MILLISECONDS.toNanos(5));
+        sut.recordStage(AccessMetrics.Stage.DSS, SubjectPurposeOfUse.HEALTHCARE_TREATMENT, "permit", 3 * 1024 * 1024, TimeUnit.MILLISECONDS.toNanos(7));
+        sut.recordStage(AccessMetrics.Stage.PDP, null, null, 0, TimeUnit.MILLISECONDS.toNanos(1));
+
+        // Assert
+        assertEquals(2, metricRegistry.timer("pep.access.dss.purpose-of-use.treatment.decision.permit.document-size.lt-10mb").getCount());
+        assertEquals(1, metricRegistry.timer("pep.access.pdp.purpose-of-use.unknown.decision.unknown.document-size.none").getCount());
+    }
+
+    @Test
+    public void recordFeignError_Counts_By_Client_And_Status() throws Exception {
+        // Act
+        sut.recordFeignError("dss", 400);
+        sut.recordFeignError("dss", 400);
+        sut.recordFeignError("context-handler", 0);
+
+        // Assert
+        assertEquals(2, metricRegistry.counter("pep.access.feign.dss.status.400").getCount());
+        assertEquals(1, metricRegistry.counter("pep.access.feign.context-handler.status.unavailable").getCount());
+    }
+}
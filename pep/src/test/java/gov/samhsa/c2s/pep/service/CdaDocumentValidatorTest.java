@@ -0,0 +1,53 @@
+package gov.samhsa.c2s.pep.service;
+
+import gov.samhsa.c2s.pep.service.exception.InvalidDocumentException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.nio.charset.StandardCharsets;
+
+public class CdaDocumentValidatorTest {
+
+    private static final String CDA_DOCUMENT = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+            "<ClinicalDocument xmlns=\"urn:hl7-org:v3\"><title>title</title>" +
+            "<component><structuredBody/></component></ClinicalDocument>";
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private final CdaDocumentValidator sut = new CdaDocumentValidator(Runnable::run, true);
+
+    @Test
+    public void validate_Accepts_A_Well_Formed_CDA_Document() throws Exception {
+        // Act
+        sut.validate(CDA_DOCUMENT.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8.name());
+    }
+
+    @Test
+    public void validate_Rejects_A_Document_That_Is_Not_Well_Formed() throws Exception {
+        // Arrange
+        thrown.expect(InvalidDocumentException.class);
+
+        // Act
+        sut.validate("<ClinicalDocument xmlns=\"urn:hl7-org:v3\"><component>".getBytes(StandardCharsets.UTF_8), null);
+    }
+
+    @Test
+    public void validate_Rejects_A_Document_That_Is_Not_A_CDA_Document() throws Exception {
+        // Arrange
+        thrown.expect(InvalidDocumentException.class);
+
+        // Act
+        sut.validate("<ClinicalDocument><component/></ClinicalDocument>".getBytes(StandardCharsets.UTF_8), null);
+    }
+
+    @Test
+    public void validateAsync_Does_Not_Parse_The_Document_When_Disabled() throws Exception {
+        // Arrange
+        final CdaDocumentValidator disabled = new CdaDocumentValidator(Runnable::run, false);
+
+        // Act
+        disabled.validateAsync("document".getBytes(StandardCharsets.UTF_8), null).join();
+    }
+}
@@ -0,0 +1,53 @@
+package gov.samhsa.c2s.pep.service;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.xml.transform.Templates;
+import java.util.Locale;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class CdaStylesheetRegistryTest {
+
+    private static CdaStylesheetRegistry sut;
+
+    @BeforeClass
+    public static void setup() {
+        sut = new CdaStylesheetRegistry();
+    }
+
+    @Test
+    public void getTemplates_Returns_The_Same_Compiled_Stylesheet_For_Each_Call() throws Exception {
+        // Act
+        final Templates first = sut.getTemplates(Locale.US);
+        final Templates second = sut.getTemplates(Locale.ENGLISH);
+
+        // Assert
+        assertNotNull(first);
+        assertSame(first, second);
+    }
+
+    @Test
+    public void getTemplates_Returns_Spanish_Stylesheet_For_Spanish_Locale() throws Exception {
+        // Act
+        final Templates english = sut.getTemplates(Locale.ENGLISH);
+        final Templates spanish = sut.getTemplates(new Locale("es"));
+
+        // Assert
+        assertNotNull(spanish);
+        assertNotSame(english, spanish);
+    }
+
+    @Test
+    public void getTemplates_Falls_Back_To_English_For_Unsupported_Locale() throws Exception {
+        // Act
+        final Templates english = sut.getTemplates(Locale.ENGLISH);
+        final Templates fallback = sut.getTemplates(Locale.GERMAN);
+
+        // Assert
+        assertSame(english, fallback);
+    }
+}
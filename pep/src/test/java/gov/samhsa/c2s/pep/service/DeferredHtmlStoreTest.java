@@ -0,0 +1,57 @@
+package gov.samhsa.c2s.pep.service;
+
+import gov.samhsa.c2s.pep.infrastructure.dto.SubjectPurposeOfUse;
+import gov.samhsa.c2s.pep.service.dto.AccessResponseWithDocumentDto;
+import gov.samhsa.c2s.pep.service.dto.RenderedHtmlDto;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class DeferredHtmlStoreTest {
+
+    private final DeferredHtmlStore sut = new DeferredHtmlStore(60, 1024 * 1024);
+
+    @Test
+    public void getOrRender_Renders_The_Html_Of_A_Handle_Once() throws Exception {
+        // Arrange
+        final AtomicInteger renders = new AtomicInteger();
+        final AccessResponseWithDocumentDto accessResponse = AccessResponseWithDocumentDto.builder()
+                .decision("permit")
+                .segmentedDocument("<ClinicalDocument/>".getBytes(StandardCharsets.UTF_8))
+                .segmentedDocumentEncoding(StandardCharsets.UTF_8.name())
+                .purposeOfUse(SubjectPurposeOfUse.HEALTHCARE_TREATMENT)
+                .build();
+        final String handle = sut.register(accessResponse, Locale.US);
+        final DeferredHtmlStore.RenderFunction renderer = (segmentedDocument, encoding, locale, purposeOfUse, decision) -> {
+            renders.incrementAndGet();
+            return ("<html>" + locale + " " + purposeOfUse + " " + decision + "</html>").getBytes(StandardCharsets.UTF_8);
+        };
+
+        // Act
+        final RenderedHtmlDto first = sut.getOrRender(handle, renderer).get();
+        final RenderedHtmlDto second = sut.getOrRender(handle, renderer).get();
+
+        // Assert
+        assertEquals("<html>en_US HEALTHCARE_TREATMENT permit</html>", new String(first.getHtml(), StandardCharsets.UTF_8));
+        assertEquals(StandardCharsets.UTF_8.name(), first.getEncoding());
+        assertEquals(SubjectPurposeOfUse.HEALTHCARE_TREATMENT, first.getPurposeOfUse());
+        assertEquals("permit", first.getDecision());
+        assertEquals(first, second);
+        assertEquals(1, renders.get());
+    }
+
+    @Test
+    public void getOrRender_Returns_Empty_For_Unknown_Handle() throws Exception {
+        // Act
+        final Optional<RenderedHtmlDto> renderedHtml = sut.getOrRender("unknown", (segmentedDocument, encoding, locale, purposeOfUse, decision) -> new byte[0]);
+
+        // Assert
+        assertFalse(renderedHtml.isPresent());
+    }
+}
@@ -0,0 +1,185 @@
+package gov.samhsa.c2s.pep.service;
+
+import gov.samhsa.c2s.pep.service.exception.PepException;
+import gov.samhsa.c2s.pep.service.exception.ServiceUnavailableException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class HtmlRenderingExecutorTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Mock
+    private AccessMetrics accessMetrics;
+
+    private ThreadPoolExecutor executor;
+
+    private HtmlRenderingExecutor sut;
+
+    @Before
+    public void setup() {
+        executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new SynchronousQueue<>());
+        sut = new HtmlRenderingExecutor(executor, accessMetrics, new OutputBufferPool(4, 1024), 1024, 2, 5000);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void render_Returns_The_Result_And_Records_The_Queue_Time() throws Exception {
+        // Act
+        final String html = sut.render(() -> "html");
+
+        // Assert
+        assertEquals("html", html);
+        verify(accessMetrics).recordQueueTime(eq(AccessMetrics.Stage.HTML_TRANSFORM), anyLong());
+    }
+
+    @Test
+    public void render_Rethrows_The_Exception_Of_The_Rendering() throws Exception {
+        // Arrange
+        thrown.expect(PepException.class);
+
+        // Act
+        sut.render(() -> {
+            throw new PepException("Unable to transform the segmented document to HTML");
+        });
+    }
+
+    @Test
+    public void render_Rejects_Renderings_When_The_Pool_Is_Busy() throws Exception {
+        // Arrange
+        final CountDownLatch busy = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                busy.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thrown.expect(ServiceUnavailableException.class);
+
+        try {
+            // Act
+            sut.render(() -> "html");
+        } finally {
+            // Assert
+            verify(accessMetrics).recordRejected(AccessMetrics.Stage.HTML_TRANSFORM);
+            busy.countDown();
+        }
+    }
+
+    @Test
+    public void stream_Writes_The_Rendering_On_The_Calling_Thread_In_Chunks() throws Exception {
+        // Arrange
+        final byte[] html = new byte[10000];
+        Arrays.fill(html, (byte) 'h');
+        final Thread callingThread = Thread.currentThread();
+        final Thread[] renderingThread = new Thread[1];
+        final Thread[] writingThread = new Thread[1];
+        final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        final OutputStream output = new OutputStream() {
+            @Override
+            public void write(int b) {
+                written.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                writingThread[0] = Thread.currentThread();
+                written.write(b, off, len);
+            }
+        };
+
+        // Act
+        sut.stream(out -> {
+            renderingThread[0] = Thread.currentThread();
+            write(out, html);
+        }, output);
+
+        // Assert
+        assertArrayEquals(html, written.toByteArray());
+        assertEquals(callingThread, writingThread[0]);
+        assertNotEquals(callingThread, renderingThread[0]);
+        verify(accessMetrics).recordQueueTime(eq(AccessMetrics.Stage.HTML_TRANSFORM), anyLong());
+    }
+
+    @Test
+    public void stream_Rethrows_The_Exception_Of_The_Rendering() throws Exception {
+        // Arrange
+        thrown.expect(PepException.class);
+
+        // Act
+        sut.stream(out -> {
+            write(out, "partial".getBytes(StandardCharsets.UTF_8));
+            throw new PepException("Unable to transform the segmented document to HTML");
+        }, new ByteArrayOutputStream());
+    }
+
+    @Test
+    public void stream_Aborts_The_Rendering_When_The_Client_Stops_Reading() throws Exception {
+        // Arrange
+        final byte[] html = new byte[100000];
+        final CountDownLatch renderingCompleted = new CountDownLatch(1);
+        final Exception[] renderingException = new Exception[1];
+        final OutputStream brokenOutput = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+        thrown.expect(IOException.class);
+
+        try {
+            // Act
+            sut.stream(out -> {
+                try {
+                    out.write(html);
+                } catch (IOException e) {
+                    renderingException[0] = e;
+                } finally {
+                    renderingCompleted.countDown();
+                }
+            }, brokenOutput);
+        } finally {
+            // Assert
+            renderingCompleted.await(5, TimeUnit.SECONDS);
+            assertEquals("The HTML stream was closed", renderingException[0].getMessage());
+        }
+    }
+
+    private static void write(OutputStream output, byte[] bytes) {
+        try {
+            output.write(bytes);
+        } catch (IOException e) {
+            throw new PepException("Unable to transform the segmented document to HTML", e);
+        }
+    }
+}
@@ -1,8 +1,14 @@
 package gov.samhsa.c2s.pep.service;
 
+import com.netflix.hystrix.exception.HystrixBadRequestException;
+import com.netflix.hystrix.exception.HystrixRuntimeException;
 import feign.FeignException;
+import gov.samhsa.c2s.pep.config.BatchAccessProperties;
 import gov.samhsa.c2s.pep.infrastructure.ContextHandlerService;
 import gov.samhsa.c2s.pep.infrastructure.DssService;
+import gov.samhsa.c2s.pep.infrastructure.audit.DecisionAuditLog;
+import gov.samhsa.c2s.pep.infrastructure.audit.DecisionAuditRecord;
+import gov.samhsa.c2s.pep.infrastructure.dto.DSSRequest;
 import gov.samhsa.c2s.pep.infrastructure.dto.DSSResponse;
 import gov.samhsa.c2s.pep.infrastructure.dto.PatientIdDto;
 import gov.samhsa.c2s.pep.infrastructure.dto.SubjectPurposeOfUse;
@@ -11,8 +17,12 @@
 import gov.samhsa.c2s.pep.service.dto.AccessRequestDto;
 import gov.samhsa.c2s.pep.service.dto.AccessResponseDto;
 import gov.samhsa.c2s.pep.service.dto.AccessResponseWithDocumentDto;
+import gov.samhsa.c2s.pep.service.dto.BatchAccessResponseDto;
+import gov.samhsa.c2s.pep.service.exception.InvalidDocumentException;
 import gov.samhsa.c2s.pep.service.exception.PepException;
 import gov.samhsa.c2s.pep.service.exception.NoDocumentFoundException;
+import gov.samhsa.c2s.pep.service.exception.ServiceUnavailableException;
+import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -27,12 +37,20 @@
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import static gov.samhsa.c2s.common.unit.matcher.ArgumentMatchers.matching;
 import static junit.framework.TestCase.assertNotNull;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -44,15 +62,36 @@ public class PolicyEnforcementPointImplTest {
     @Rule
     public ExpectedException thrown = ExpectedException.none();
 
+    @Mock
+    private AccessMetrics accessMetrics;
+
+    @Mock
+    private DecisionAuditLog decisionAuditLog;
+
+    @Mock
+    private CdaDocumentValidator cdaDocumentValidator;
+
     @Mock
     private ContextHandlerService contextHandler;
 
     @Mock
     private DssService dssService;
 
+    @Mock
+    private Executor batchAccessExecutor;
+
+    @Mock
+    private BatchAccessProperties batchAccessProperties;
+
     @InjectMocks
     private PolicyEnforcementPointServiceImpl sut;
 
+    @Before
+    public void setup() {
+        when(batchAccessProperties.getConcurrency()).thenReturn(2);
+        when(cdaDocumentValidator.validateAsync(any(byte[].class), anyString())).thenReturn(CompletableFuture.completedFuture(null));
+    }
+
     @Test
     public void accessDocument_When_PDP_Decision_Is_Permit() throws Exception {
         // Arrange
@@ -107,6 +146,11 @@ public void accessDocument_When_PDP_Decision_Is_Permit() throws Exception {
                         root.equals(dssRequest.getXacmlResult().getHomeCommunityId()) &&
                         pdpObligations.containsAll(dssRequest.getXacmlResult().getPdpObligations()) &&
                         dssRequest.getXacmlResult().getPdpObligations().containsAll(pdpObligations))));
+        verify(decisionAuditLog, times(1)).record(argThat(matching(
+                record -> DecisionAuditRecord.Outcome.SEGMENTED.equals(record.getOutcome()) &&
+                        decision.equals(record.getDecision()) &&
+                        recipientNpi.equals(record.getRecipientNpi()) &&
+                        extension.equals(record.getPatientId()))));
     }
 
     @Test
@@ -286,4 +330,177 @@ public void accessDocument_When_Context_Hander_Returns_Internal_Server_Error_Sta
                         pdpObligations.containsAll(dssRequest.getXacmlResult().getPdpObligations()) &&
                         dssRequest.getXacmlResult().getPdpObligations().containsAll(pdpObligations))));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void accessDocuments_Evaluates_Each_Distinct_Xacml_Request_Once() throws Exception {
+        // Arrange
+        final SubjectPurposeOfUse purposeOfUse = SubjectPurposeOfUse.HEALTHCARE_TREATMENT;
+        final PatientIdDto permittedPatientId = PatientIdDto.builder().extension("permitted").root("root").build();
+        final PatientIdDto deniedPatientId = PatientIdDto.builder().extension("denied").root("root").build();
+        final XacmlRequestDto permittedXacmlRequest = XacmlRequestDto.builder().intermediaryNpi("intermediaryNpi").recipientNpi("recipientNpi").patientId(permittedPatientId).purposeOfUse(purposeOfUse).build();
+        final XacmlRequestDto deniedXacmlRequest = XacmlRequestDto.builder().intermediaryNpi("intermediaryNpi").recipientNpi("recipientNpi").patientId(deniedPatientId).purposeOfUse(purposeOfUse).build();
+        final Charset documentEncoding = StandardCharsets.UTF_8;
+        final byte[] segmentedDocumentBytes = "segmentedDocument".getBytes(documentEncoding);
+        final DSSResponse dssResponse = DSSResponse.builder().encoding(documentEncoding.name()).segmentedDocument(segmentedDocumentBytes).build();
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArguments()[0]).run();
+            return null;
+        }).when(batchAccessExecutor).execute(any(Runnable.class));
+        when(contextHandler.enforcePolicy(permittedXacmlRequest)).thenReturn(XacmlResponseDto.builder().pdpDecision("permit").pdpObligation("ETH").build());
+        when(contextHandler.enforcePolicy(deniedXacmlRequest)).thenReturn(XacmlResponseDto.builder().pdpDecision("deny").build());
+        when(dssService.segmentDocument(argThat(matching(
+                dssRequest -> "permitted".equals(dssRequest.getXacmlResult().getPatientId()))))).thenReturn(dssResponse);
+        final List<AccessRequestDto> requests = Arrays.asList(
+                AccessRequestDto.builder().xacmlRequest(permittedXacmlRequest).document(Optional.of("document1".getBytes(documentEncoding))).documentEncoding(Optional.of(documentEncoding.name())).build(),
+                AccessRequestDto.builder().xacmlRequest(permittedXacmlRequest).document(Optional.of("document2".getBytes(documentEncoding))).documentEncoding(Optional.of(documentEncoding.name())).build(),
+                AccessRequestDto.builder().xacmlRequest(deniedXacmlRequest).document(Optional.of("document3".getBytes(documentEncoding))).documentEncoding(Optional.of(documentEncoding.name())).build());
+
+        // Act
+        final BatchAccessResponseDto response = sut.accessDocuments(requests, Optional.empty());
+
+        // Assert
+        assertEquals(3, response.getResults().size());
+        assertEquals(HttpStatus.OK.value(), response.getResults().get(0).getStatus());
+        assertEquals(HttpStatus.OK.value(), response.getResults().get(1).getStatus());
+        assertEquals(segmentedDocumentBytes, ((AccessResponseWithDocumentDto) response.getResults().get(0).getResponse()).getSegmentedDocument());
+        assertEquals(HttpStatus.NOT_FOUND.value(), response.getResults().get(2).getStatus());
+        assertEquals(NoDocumentFoundException.DEFAULT_MESSAGE, response.getResults().get(2).getError());
+        verify(contextHandler, times(1)).enforcePolicy(permittedXacmlRequest);
+        verify(contextHandler, times(1)).enforcePolicy(deniedXacmlRequest);
+        verify(dssService, times(2)).segmentDocument(argThat(matching(
+                dssRequest -> "permitted".equals(dssRequest.getXacmlResult().getPatientId()))));
+    }
+
+    @Test
+    public void accessDocuments_Audits_Each_Access_Request_Sharing_A_Failed_Xacml_Request() throws Exception {
+        // Arrange
+        final PatientIdDto patientId = PatientIdDto.builder().extension("extension").root("root").build();
+        final XacmlRequestDto xacmlRequest = XacmlRequestDto.builder().intermediaryNpi("intermediaryNpi").recipientNpi("recipientNpi").patientId(patientId).purposeOfUse(SubjectPurposeOfUse.HEALTHCARE_TREATMENT).build();
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArguments()[0]).run();
+            return null;
+        }).when(batchAccessExecutor).execute(any(Runnable.class));
+        final HystrixRuntimeException e = mock(HystrixRuntimeException.class);
+        when(contextHandler.enforcePolicy(xacmlRequest)).thenThrow(e);
+        final List<AccessRequestDto> requests = Arrays.asList(
+                AccessRequestDto.builder().xacmlRequest(xacmlRequest).document(Optional.empty()).documentEncoding(Optional.empty()).build(),
+                AccessRequestDto.builder().xacmlRequest(xacmlRequest).document(Optional.empty()).documentEncoding(Optional.empty()).build());
+
+        // Act
+        final BatchAccessResponseDto response = sut.accessDocuments(requests, Optional.empty());
+
+        // Assert
+        response.getResults().forEach(result -> assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), result.getStatus()));
+        verify(contextHandler, times(1)).enforcePolicy(xacmlRequest);
+        verify(decisionAuditLog, times(2)).record(argThat(matching(
+                record -> DecisionAuditRecord.Outcome.FAILED.equals(record.getOutcome()) &&
+                        "extension".equals(record.getPatientId()))));
+    }
+
+    @Test
+    public void accessDocuments_Fails_Access_Requests_Rejected_By_The_Executor_With_Service_Unavailable() throws Exception {
+        // Arrange
+        final PatientIdDto patientId = PatientIdDto.builder().extension("extension").root("root").build();
+        final XacmlRequestDto xacmlRequest = XacmlRequestDto.builder().intermediaryNpi("intermediaryNpi").recipientNpi("recipientNpi").patientId(patientId).purposeOfUse(SubjectPurposeOfUse.HEALTHCARE_TREATMENT).build();
+        doThrow(new RejectedExecutionException()).when(batchAccessExecutor).execute(any(Runnable.class));
+        final List<AccessRequestDto> requests = Arrays.asList(
+                AccessRequestDto.builder().xacmlRequest(xacmlRequest).document(Optional.empty()).documentEncoding(Optional.empty()).build(),
+                AccessRequestDto.builder().xacmlRequest(xacmlRequest).document(Optional.empty()).documentEncoding(Optional.empty()).build(),
+                AccessRequestDto.builder().xacmlRequest(xacmlRequest).document(Optional.empty()).documentEncoding(Optional.empty()).build());
+
+        // Act
+        final BatchAccessResponseDto response = sut.accessDocuments(requests, Optional.empty());
+
+        // Assert
+        assertEquals(3, response.getResults().size());
+        response.getResults().forEach(result -> assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), result.getStatus()));
+        verify(contextHandler, times(0)).enforcePolicy(any(XacmlRequestDto.class));
+    }
+
+    @Test
+    public void accessDocument_When_Context_Handler_Returns_Not_Found_Status_Through_Hystrix() throws Exception {
+        // Arrange
+        thrown.expect(NoDocumentFoundException.class);
+        final PatientIdDto patientId = PatientIdDto.builder().extension("extension").root("root").build();
+        final XacmlRequestDto xacmlRequest = XacmlRequestDto.builder().intermediaryNpi("intermediaryNpi").recipientNpi("recipientNpi").patientId(patientId).purposeOfUse(SubjectPurposeOfUse.HEALTHCARE_TREATMENT).build();
+        final FeignException e = mock(FeignException.class);
+        when(e.status()).thenReturn(HttpStatus.NOT_FOUND.value());
+        when(contextHandler.enforcePolicy(xacmlRequest)).thenThrow(new HystrixBadRequestException("Not Found", e));
+        final AccessRequestDto request = AccessRequestDto.builder().xacmlRequest(xacmlRequest).document(Optional.empty()).documentEncoding(Optional.empty()).build();
+
+        // Act
+        sut.accessDocument(request, Optional.empty());
+    }
+
+    @Test
+    public void accessDocument_When_Context_Handler_Returns_Not_Found_Status_Audits_No_Consent() throws Exception {
+        // Arrange
+        final PatientIdDto patientId = PatientIdDto.builder().extension("extension").root("root").build();
+        final XacmlRequestDto xacmlRequest = XacmlRequestDto.builder().intermediaryNpi("intermediaryNpi").recipientNpi("recipientNpi").patientId(patientId).purposeOfUse(SubjectPurposeOfUse.HEALTHCARE_TREATMENT).build();
+        final FeignException e = mock(FeignException.class);
+        when(e.status()).thenReturn(HttpStatus.NOT_FOUND.value());
+        when(contextHandler.enforcePolicy(xacmlRequest)).thenThrow(e);
+        final AccessRequestDto request = AccessRequestDto.builder().xacmlRequest(xacmlRequest).document(Optional.empty()).documentEncoding(Optional.empty()).build();
+
+        // Act
+        try {
+            sut.accessDocument(request, Optional.empty());
+            fail("NoDocumentFoundException expected");
+        } catch (NoDocumentFoundException expected) {
+            // The missing consent is reported as a document that is not found
+        }
+
+        // Assert
+        verify(decisionAuditLog, times(1)).record(argThat(matching(
+                record -> DecisionAuditRecord.Outcome.NO_CONSENT.equals(record.getOutcome()) &&
+                        record.getDecision() == null &&
+                        "extension".equals(record.getPatientId()) &&
+                        "root".equals(record.getHomeCommunityId()) &&
+                        "recipientNpi".equals(record.getRecipientNpi()) &&
+                        "intermediaryNpi".equals(record.getIntermediaryNpi()) &&
+                        SubjectPurposeOfUse.HEALTHCARE_TREATMENT.getPurpose().equals(record.getPurposeOfUse()))));
+    }
+
+    @Test
+    public void accessDocument_When_Context_Handler_Is_Unavailable() throws Exception {
+        // Arrange
+        thrown.expect(ServiceUnavailableException.class);
+        final PatientIdDto patientId = PatientIdDto.builder().extension("extension").root("root").build();
+        final XacmlRequestDto xacmlRequest = XacmlRequestDto.builder().intermediaryNpi("intermediaryNpi").recipientNpi("recipientNpi").patientId(patientId).purposeOfUse(SubjectPurposeOfUse.HEALTHCARE_TREATMENT).build();
+        final HystrixRuntimeException e = mock(HystrixRuntimeException.class);
+        when(contextHandler.enforcePolicy(xacmlRequest)).thenThrow(e);
+        final AccessRequestDto request = AccessRequestDto.builder().xacmlRequest(xacmlRequest).document(Optional.empty()).documentEncoding(Optional.empty()).build();
+
+        try {
+            // Act
+            sut.accessDocument(request, Optional.empty());
+        } finally {
+            // Assert
+            verify(dssService, times(0)).segmentDocument(any(DSSRequest.class));
+        }
+    }
+
+    @Test
+    public void accessDocument_When_Document_Is_Invalid_Does_Not_Call_DSS() throws Exception {
+        // Arrange
+        thrown.expect(InvalidDocumentException.class);
+        final PatientIdDto patientId = PatientIdDto.builder().extension("extension").root("root").build();
+        final XacmlRequestDto xacmlRequest = XacmlRequestDto.builder().intermediaryNpi("intermediaryNpi").recipientNpi("recipientNpi").patientId(patientId).purposeOfUse(SubjectPurposeOfUse.HEALTHCARE_TREATMENT).build();
+        final XacmlResponseDto xacmlResponse = XacmlResponseDto.builder().pdpDecision("permit").build();
+        final byte[] document = "document".getBytes(StandardCharsets.UTF_8);
+        final CompletableFuture<Void> documentValidation = new CompletableFuture<>();
+        documentValidation.completeExceptionally(new InvalidDocumentException("Document is not well-formed XML"));
+        when(cdaDocumentValidator.validateAsync(document, StandardCharsets.UTF_8.name())).thenReturn(documentValidation);
+        when(contextHandler.enforcePolicy(xacmlRequest)).thenReturn(xacmlResponse);
+        final AccessRequestDto request = AccessRequestDto.builder().xacmlRequest(xacmlRequest).document(Optional.of(document)).documentEncoding(Optional.of(StandardCharsets.UTF_8.name())).build();
+
+        try {
+            // Act
+            sut.accessDocument(request, Optional.empty());
+        } finally {
+            // Assert
+            verify(contextHandler, times(1)).enforcePolicy(xacmlRequest);
+            verify(dssService, times(0)).segmentDocument(any(DSSRequest.class));
+        }
+    }
+}
@@ -4,9 +4,11 @@
 import gov.samhsa.c2s.pep.infrastructure.dto.PatientIdDto;
 import gov.samhsa.c2s.pep.infrastructure.dto.SubjectPurposeOfUse;
 import gov.samhsa.c2s.pep.infrastructure.dto.XacmlRequestDto;
+import gov.samhsa.c2s.pep.service.AccessMetrics;
 import gov.samhsa.c2s.pep.service.PolicyEnforcementPointService;
 import gov.samhsa.c2s.pep.service.dto.AccessResponseDto;
 import gov.samhsa.c2s.pep.service.dto.AccessResponseWithDocumentDto;
+import gov.samhsa.c2s.pep.service.dto.RenderedHtmlDto;
 import gov.samhsa.c2s.pep.service.exception.NoDocumentFoundException;
 import org.junit.Before;
 import org.junit.Rule;
@@ -17,20 +19,30 @@
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.io.OutputStream;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
+import java.util.Locale;
 import java.util.Optional;
 
 import static gov.samhsa.c2s.common.unit.matcher.ArgumentMatchers.matching;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Matchers.argThat;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.fileUpload;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -44,6 +56,9 @@ public class PolicyEnforcementPointRestControllerTest {
     @Mock
     private PolicyEnforcementPointService policyEnforcementPointService;
 
+    @Mock
+    private AccessMetrics accessMetrics;
+
     @InjectMocks
     private PolicyEnforcementPointRestController sut;
 
@@ -135,4 +150,152 @@ public void access_Throws_DocumentNotFoundException() throws Exception {
                         documentEncodingString.equals(req.getDocumentEncoding().get())
         )), eq(Optional.empty()));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void accessAsHtml() throws Exception {
+        // Arrange
+        final String recipientNpi = "recipientNpi";
+        final String intermediaryNpi = "intermediaryNpi";
+        final SubjectPurposeOfUse purposeOfUse = SubjectPurposeOfUse.HEALTHCARE_TREATMENT;
+        final String extension = "extension";
+        final String root = "root";
+        final PatientIdDto patientId = PatientIdDto.builder().extension(extension).root(root).build();
+        final XacmlRequestDto xacmlRequest = XacmlRequestDto.builder().intermediaryNpi(intermediaryNpi).recipientNpi(recipientNpi).patientId(patientId).purposeOfUse(purposeOfUse).build();
+        final String document = "document";
+        final Charset documentEncoding = StandardCharsets.UTF_8;
+        final byte[] documentBytes = document.getBytes(StandardCharsets.UTF_8);
+        final String documentEncodingString = documentEncoding.name();
+        final AccessRequestDtoForTest request = AccessRequestDtoForTest.builder()
+                .xacmlRequest(xacmlRequest)
+                .document(documentBytes)
+                .documentEncoding(documentEncodingString)
+                .build();
+        final String segmentedDocument = "segmentedDocument";
+        final String segmentedDocumentAsHtml = "<html>segmentedDocument</html>";
+        final AccessResponseWithDocumentDto response = AccessResponseWithDocumentDto.builder()
+                .segmentedDocument(segmentedDocument.getBytes(documentEncoding))
+                .segmentedDocumentEncoding(documentEncodingString)
+                .build();
+        when(policyEnforcementPointService.accessDocument(argThat(matching(
+                req -> req.getXacmlRequest().equals(xacmlRequest) &&
+                        document.equals(new String(req.getDocument().get(), documentEncoding))
+        )), eq(Optional.of(Boolean.FALSE)))).thenReturn(response);
+        doAnswer(invocation -> {
+            ((OutputStream) invocation.getArguments()[2]).write(segmentedDocumentAsHtml.getBytes(documentEncoding));
+            return null;
+        }).when(policyEnforcementPointService).writeSegmentedDocumentAsHtml(eq(response), any(Locale.class), any(OutputStream.class));
+
+        // Act and Assert
+        final MvcResult mvcResult = mvc.perform(post("/access/html")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(objectMapper.writeValueAsBytes(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().string(segmentedDocumentAsHtml));
+        verify(policyEnforcementPointService, times(1)).writeSegmentedDocumentAsHtml(eq(response), any(Locale.class), any(OutputStream.class));
+    }
+
+    @Test
+    public void accessMultipart() throws Exception {
+        // Arrange
+        final String recipientNpi = "recipientNpi";
+        final String intermediaryNpi = "intermediaryNpi";
+        final SubjectPurposeOfUse purposeOfUse = SubjectPurposeOfUse.HEALTHCARE_TREATMENT;
+        final String extension = "extension";
+        final String root = "root";
+        final PatientIdDto patientId = PatientIdDto.builder().extension(extension).root(root).build();
+        final XacmlRequestDto xacmlRequest = XacmlRequestDto.builder().intermediaryNpi(intermediaryNpi).recipientNpi(recipientNpi).patientId(patientId).purposeOfUse(purposeOfUse).build();
+        final String document = "document";
+        final Charset documentEncoding = StandardCharsets.UTF_8;
+        final String documentEncodingString = documentEncoding.name();
+        final String segmentedDocument = "segmentedDocument";
+        final byte[] segmentedDocumentBytes = segmentedDocument.getBytes(documentEncoding);
+        final String segmentedDocumentBytesEncodedString = Base64.getEncoder().encodeToString(segmentedDocumentBytes);
+        final AccessResponseDto response = AccessResponseWithDocumentDto.builder()
+                .segmentedDocument(segmentedDocumentBytes)
+                .segmentedDocumentEncoding(documentEncodingString)
+                .build();
+        when(policyEnforcementPointService.accessDocument(argThat(matching(
+                req -> req.getXacmlRequest().equals(xacmlRequest) &&
+                        document.equals(new String(req.getDocument().get(), documentEncoding)) &&
+                        documentEncodingString.equals(req.getDocumentEncoding().get())
+        )), eq(Optional.empty()))).thenReturn(response);
+
+        // Act and Assert
+        mvc.perform(fileUpload("/access")
+                .file(new MockMultipartFile("xacmlRequest", "", MediaType.APPLICATION_JSON_VALUE, objectMapper.writeValueAsBytes(xacmlRequest)))
+                .file(new MockMultipartFile("document", "document.xml", MediaType.APPLICATION_XML_VALUE, document.getBytes(documentEncoding)))
+                .param("documentEncoding", documentEncodingString))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.segmentedDocument", is(segmentedDocumentBytesEncodedString)))
+                .andExpect(jsonPath("$.segmentedDocumentEncoding", is(documentEncodingString)));
+        verify(policyEnforcementPointService, times(1)).accessDocument(argThat(matching(
+                req -> req.getXacmlRequest().equals(xacmlRequest) &&
+                        document.equals(new String(req.getDocument().get(), documentEncoding)) &&
+                        documentEncodingString.equals(req.getDocumentEncoding().get())
+        )), eq(Optional.empty()));
+    }
+
+    @Test
+    public void access_With_Accept_Application_Xml_Streams_Segmented_Document() throws Exception {
+        // Arrange
+        final String recipientNpi = "recipientNpi";
+        final String intermediaryNpi = "intermediaryNpi";
+        final SubjectPurposeOfUse purposeOfUse = SubjectPurposeOfUse.HEALTHCARE_TREATMENT;
+        final String extension = "extension";
+        final String root = "root";
+        final PatientIdDto patientId = PatientIdDto.builder().extension(extension).root(root).build();
+        final XacmlRequestDto xacmlRequest = XacmlRequestDto.builder().intermediaryNpi(intermediaryNpi).recipientNpi(recipientNpi).patientId(patientId).purposeOfUse(purposeOfUse).build();
+        final String document = "document";
+        final Charset documentEncoding = StandardCharsets.UTF_8;
+        final byte[] documentBytes = document.getBytes(StandardCharsets.UTF_8);
+        final String documentEncodingString = documentEncoding.name();
+        final AccessRequestDtoForTest request = AccessRequestDtoForTest.builder()
+                .xacmlRequest(xacmlRequest)
+                .document(documentBytes)
+                .documentEncoding(documentEncodingString)
+                .build();
+        final String decision = "permit";
+        final String segmentedDocument = "<ClinicalDocument/>";
+        final AccessResponseDto response = AccessResponseWithDocumentDto.builder()
+                .decision(decision)
+                .segmentedDocument(segmentedDocument.getBytes(documentEncoding))
+                .segmentedDocumentEncoding(documentEncodingString)
+                .build();
+        when(policyEnforcementPointService.accessDocument(argThat(matching(
+                req -> req.getXacmlRequest().equals(xacmlRequest) &&
+                        document.equals(new String(req.getDocument().get(), documentEncoding))
+        )), eq(Optional.of(Boolean.FALSE)))).thenReturn(response);
+
+        // Act and Assert
+        final MvcResult mvcResult = mvc.perform(post("/access")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_XML)
+                .content(objectMapper.writeValueAsBytes(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(header().string(PolicyEnforcementPointRestController.PDP_DECISION_HEADER, decision))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_XML))
+                .andExpect(content().string(segmentedDocument));
+        verify(policyEnforcementPointService, times(0)).writeSegmentedDocumentAsHtml(any(AccessResponseWithDocumentDto.class), any(Locale.class), any(OutputStream.class));
+    }
+
+    @Test
+    public void getSegmentedDocumentAsHtml() throws Exception {
+        // Arrange
+        final String handle = "handle";
+        final String html = "<html/>";
+        final Charset encoding = StandardCharsets.UTF_8;
+        when(policyEnforcementPointService.getSegmentedDocumentAsHtml(handle)).thenReturn(RenderedHtmlDto.of(html.getBytes(encoding), encoding.name(), SubjectPurposeOfUse.HEALTHCARE_TREATMENT, "permit"));
+
+        // Act and Assert
+        mvc.perform(get("/access/html/" + handle))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_HTML))
+                .andExpect(content().string(html));
+    }
+}
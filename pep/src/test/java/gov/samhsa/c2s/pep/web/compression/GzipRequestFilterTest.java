@@ -0,0 +1,182 @@
+package gov.samhsa.c2s.pep.web.compression;
+
+import gov.samhsa.c2s.pep.service.exception.PayloadTooLargeException;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GzipRequestFilterTest {
+
+    @Test
+    public void doFilter_Decompresses_The_Body() throws Exception {
+        // Arrange
+        final byte[] body = new byte[4096];
+        final MockFilterChain filterChain = new MockFilterChain();
+
+        // Act
+        new GzipRequestFilter(4096).doFilter(gzipRequest(body), new MockHttpServletResponse(), filterChain);
+        final ServletRequest request = filterChain.getRequest();
+
+        // Assert
+        assertArrayEquals(body, StreamUtils.copyToByteArray(request.getInputStream()));
+        assertNull(((HttpServletRequest) request).getHeader(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test(expected = PayloadTooLargeException.class)
+    public void doFilter_Rejects_Bodies_Expanding_Above_The_Maximum() throws Exception {
+        // Arrange
+        final MockFilterChain filterChain = new MockFilterChain();
+        new GzipRequestFilter(4096).doFilter(gzipRequest(new byte[1024 * 1024]), new MockHttpServletResponse(), filterChain);
+
+        // Act
+        StreamUtils.copyToByteArray(filterChain.getRequest().getInputStream());
+    }
+
+    @Test
+    public void doFilter_Decompresses_The_Body_Read_Without_Blocking() throws Exception {
+        // Arrange
+        final byte[] body = new byte[4096];
+        final byte[] compressed = gzip(body);
+        final NonBlockingServletInputStream compressedInputStream = new NonBlockingServletInputStream(compressed);
+        final HttpServletRequest gzipRequest = new HttpServletRequestWrapper(gzipRequest(body)) {
+            @Override
+            public ServletInputStream getInputStream() {
+                return compressedInputStream;
+            }
+        };
+        final MockFilterChain filterChain = new MockFilterChain();
+        new GzipRequestFilter(4096).doFilter(gzipRequest, new MockHttpServletResponse(), filterChain);
+        final ServletInputStream inputStream = filterChain.getRequest().getInputStream();
+        final ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+        final AtomicBoolean allDataRead = new AtomicBoolean();
+
+        // Act
+        inputStream.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                final byte[] chunk = new byte[1024];
+                while (inputStream.isReady() && !inputStream.isFinished()) {
+                    final int read = inputStream.read(chunk);
+                    if (read != -1) {
+                        decompressed.write(chunk, 0, read);
+                    }
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                allDataRead.set(true);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                throw new AssertionError(t);
+            }
+        });
+        final boolean readyBeforeAllDataRead = inputStream.isReady();
+        compressedInputStream.receive(compressed.length / 2);
+        compressedInputStream.receive(compressed.length);
+
+        // Assert
+        assertFalse(readyBeforeAllDataRead);
+        assertTrue(allDataRead.get());
+        assertArrayEquals(body, decompressed.toByteArray());
+    }
+
+    private static MockHttpServletRequest gzipRequest(byte[] body) throws IOException {
+        final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/access");
+        request.addHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        request.setContentType("application/json");
+        request.setContent(gzip(body));
+        return request;
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Input stream of a container that receives the body in parts and notifies the read listener of each part
+     */
+    private static class NonBlockingServletInputStream extends ServletInputStream {
+
+        private final byte[] body;
+
+        private int received;
+
+        private int position;
+
+        private ReadListener readListener;
+
+        private NonBlockingServletInputStream(byte[] body) {
+            this.body = body;
+        }
+
+        private void receive(int length) throws IOException {
+            received = length;
+            readListener.onDataAvailable();
+            if (isFinished()) {
+                readListener.onAllDataRead();
+            }
+        }
+
+        @Override
+        public int read() {
+            if (!isReady()) {
+                throw new IllegalStateException("Not ready");
+            }
+            return isFinished() ? -1 : body[position++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!isReady()) {
+                throw new IllegalStateException("Not ready");
+            }
+            if (isFinished()) {
+                return -1;
+            }
+            final int read = Math.min(len, received - position);
+            System.arraycopy(body, position, b, off, read);
+            position += read;
+            return read;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return position == body.length;
+        }
+
+        @Override
+        public boolean isReady() {
+            return position < received || isFinished();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            this.readListener = readListener;
+        }
+    }
+}
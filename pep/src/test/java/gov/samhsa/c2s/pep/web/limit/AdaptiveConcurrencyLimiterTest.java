@@ -0,0 +1,153 @@
+package gov.samhsa.c2s.pep.web.limit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long WINDOW_IN_MILLIS = 1000;
+
+    private static final int WINDOW_SAMPLES = 4;
+
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    private ConcurrencyLimitProperties properties;
+
+    private AdaptiveConcurrencyLimiter sut;
+
+    @Before
+    public void setup() {
+        properties = new ConcurrencyLimitProperties();
+        properties.setInitialLimit(4);
+        properties.setMinLimit(1);
+        properties.setMaxLimit(5);
+        properties.setBackoffRatio(0.5);
+        properties.setWindowInMillis(WINDOW_IN_MILLIS);
+        properties.setMinWindowSamples(WINDOW_SAMPLES);
+        sut = new AdaptiveConcurrencyLimiter("test", properties, nanoTime::get);
+    }
+
+    @Test
+    public void tryAcquire_Rejects_Requests_Above_The_Limit() throws Exception {
+        // Act
+        final List<AdaptiveConcurrencyLimiter.Permit> permits = acquire(4);
+        final Optional<AdaptiveConcurrencyLimiter.Permit> rejected = sut.tryAcquire();
+        permits.get(0).onSuccess();
+        final Optional<AdaptiveConcurrencyLimiter.Permit> admitted = sut.tryAcquire();
+
+        // Assert
+        assertFalse(rejected.isPresent());
+        assertTrue(admitted.isPresent());
+        assertEquals(1, sut.getRejected());
+        assertEquals(4, sut.getInFlight());
+    }
+
+    @Test
+    public void onDropped_Decreases_The_Limit_Once_Per_Window() throws Exception {
+        // Arrange
+        final List<AdaptiveConcurrencyLimiter.Permit> permits = acquire(2);
+
+        // Act
+        advance(WINDOW_IN_MILLIS / 2);
+        permits.get(0).onDropped();
+        final int limitWithinWindow = sut.getLimit();
+        advance(WINDOW_IN_MILLIS / 2);
+        permits.get(1).onDropped();
+
+        // Assert
+        assertEquals(4, limitWithinWindow);
+        assertEquals(2, sut.getLimit());
+    }
+
+    @Test
+    public void onSuccess_Does_Not_Decrease_The_Limit_For_Stable_High_Latency() throws Exception {
+        // Act
+        for (int i = 0; i < 10; i++) {
+            window(TimeUnit.SECONDS.toMillis(20));
+        }
+
+        // Assert
+        assertEquals(5, sut.getLimit());
+    }
+
+    @Test
+    public void onSuccess_Decreases_The_Limit_Gradually_When_Latency_Rises_Above_The_Baseline() throws Exception {
+        // Arrange
+        properties.setInitialLimit(50);
+        properties.setMaxLimit(100);
+        sut = new AdaptiveConcurrencyLimiter("test", properties, nanoTime::get);
+        for (int i = 0; i < 3; i++) {
+            window(100);
+        }
+
+        // Act
+        window(1000);
+        final int firstLimit = sut.getLimit();
+        for (int i = 0; i < 5; i++) {
+            window(1000);
+        }
+
+        // Assert
+        assertTrue(firstLimit < 50);
+        assertTrue(firstLimit >= 45);
+        assertTrue(sut.getLimit() < firstLimit);
+    }
+
+    @Test
+    public void onSuccess_Increases_The_Limit_Up_To_The_Maximum_While_It_Is_Used() throws Exception {
+        // Act
+        for (int i = 0; i < 5; i++) {
+            window(100);
+        }
+
+        // Assert
+        assertEquals(5, sut.getLimit());
+        assertEquals(0, sut.getInFlight());
+    }
+
+    @Test
+    public void onSuccess_Releases_A_Permit_Only_Once() throws Exception {
+        // Arrange
+        final AdaptiveConcurrencyLimiter.Permit permit = acquire(1).get(0);
+
+        // Act
+        permit.onSuccess();
+        permit.onDropped();
+
+        // Assert
+        assertEquals(0, sut.getInFlight());
+        assertEquals(4, sut.getLimit());
+    }
+
+    /**
+     * Completes a window of requests that all took the given latency
+     */
+    private void window(long latencyInMillis) {
+        advance(Math.max(0, WINDOW_IN_MILLIS - latencyInMillis));
+        final List<AdaptiveConcurrencyLimiter.Permit> permits = acquire(WINDOW_SAMPLES);
+        advance(latencyInMillis);
+        permits.forEach(AdaptiveConcurrencyLimiter.Permit::onSuccess);
+    }
+
+    private void advance(long millis) {
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    private List<AdaptiveConcurrencyLimiter.Permit> acquire(int count) {
+        final List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            permits.add(sut.tryAcquire().orElseThrow(IllegalStateException::new));
+        }
+        return permits;
+    }
+}
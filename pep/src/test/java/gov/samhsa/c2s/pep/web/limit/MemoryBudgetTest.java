@@ -0,0 +1,71 @@
+package gov.samhsa.c2s.pep.web.limit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MemoryBudgetTest {
+
+    private static final int MB = 1024 * 1024;
+
+    private MemoryBudget sut;
+
+    @Before
+    public void setup() {
+        sut = new MemoryBudget(10 * MB);
+    }
+
+    @Test
+    public void tryReserve_Rejects_Requests_Over_The_Remaining_Budget() throws Exception {
+        // Act
+        final Optional<MemoryBudget.Reservation> first = sut.tryReserve(6 * MB, 0);
+        final Optional<MemoryBudget.Reservation> rejected = sut.tryReserve(6 * MB, 0);
+        first.orElseThrow(IllegalStateException::new).release();
+        final Optional<MemoryBudget.Reservation> admitted = sut.tryReserve(6 * MB, 0);
+
+        // Assert
+        assertFalse(rejected.isPresent());
+        assertTrue(admitted.isPresent());
+        assertEquals(6 * MB, sut.getInFlightBytes());
+        assertEquals(1, sut.getRejected());
+    }
+
+    @Test
+    public void release_Gives_Back_The_Reservation_Only_Once() throws Exception {
+        // Arrange
+        final MemoryBudget.Reservation reservation = sut.tryReserve(MB, 0).orElseThrow(IllegalStateException::new);
+
+        // Act
+        reservation.release();
+        reservation.release();
+
+        // Assert
+        assertEquals(0, sut.getInFlightBytes());
+        assertTrue(sut.fits(10 * MB));
+        assertFalse(sut.fits(10 * MB + 1));
+    }
+
+    @Test
+    public void tryExtend_Grows_The_Reservation_Only_While_Budget_Is_Available() throws Exception {
+        // Arrange
+        final MemoryBudget.Reservation reservation = sut.tryReserve(MB, 0).orElseThrow(IllegalStateException::new);
+        final MemoryBudget.Reservation other = sut.tryReserve(6 * MB, 0).orElseThrow(IllegalStateException::new);
+
+        // Act
+        final boolean extended = reservation.tryExtend(2 * MB);
+        final boolean rejected = reservation.tryExtend(2 * MB);
+        reservation.release();
+
+        // Assert
+        assertTrue(extended);
+        assertFalse(rejected);
+        assertEquals(6 * MB, sut.getInFlightBytes());
+        assertEquals(1, sut.getRejected());
+        other.release();
+    }
+}